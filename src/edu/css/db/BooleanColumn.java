@@ -0,0 +1,105 @@
+package edu.css.db;
+
+import edu.css.json.JsonReader;
+import edu.css.json.JsonToken;
+import edu.css.json.JsonWriter;
+
+import java.util.BitSet;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class BooleanColumn extends TableColumn {
+    private final BitSet values;
+    private final BitSet nulls;
+
+    BooleanColumn() {
+        this.values = new BitSet();
+        this.nulls = new BitSet();
+    }
+
+    private BooleanColumn(BooleanColumn other) {
+        this.values = (BitSet) other.values.clone();
+        this.nulls = (BitSet) other.nulls.clone();
+    }
+
+    @Override
+    Boolean get(int slot) {
+        return nulls.get(slot) ? null : values.get(slot);
+    }
+
+    @Override
+    void set(int slot, Object value) {
+        assert value == null || value instanceof Boolean : "object value must be of type Boolean";
+        nulls.set(slot, value == null);
+        values.set(slot, value != null && (Boolean) value);
+    }
+
+    @Override
+    boolean matches(int slot, Object value) {
+        if (value == null || nulls.get(slot)) {
+            return value == null && nulls.get(slot);
+        }
+        return value instanceof Boolean && values.get(slot) == (Boolean) value;
+    }
+
+    @Override
+    boolean isNull(int slot) {
+        return nulls.get(slot);
+    }
+
+    @Override
+    Object normalize(Object value) {
+        return value instanceof Boolean ? value : null;
+    }
+
+    @Override
+    int compareValue(int slot, Object value) {
+        return Boolean.compare(values.get(slot), (Boolean) value);
+    }
+
+    @Override
+    int compareSlots(int first, int second) {
+        if (nulls.get(first) || nulls.get(second)) {
+            return Boolean.compare(!nulls.get(first), !nulls.get(second));
+        }
+        return Boolean.compare(values.get(first), values.get(second));
+    }
+
+    @Override
+    void read(int slot, JsonReader reader) {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            set(slot, null);
+        } else {
+            nulls.clear(slot);
+            values.set(slot, reader.nextBoolean());
+        }
+    }
+
+    @Override
+    void write(int slot, JsonWriter writer) {
+        if (nulls.get(slot)) {
+            writer.nullValue();
+        } else {
+            writer.value(values.get(slot));
+        }
+    }
+
+    @Override
+    void move(int from, int to) {
+        values.set(to, values.get(from));
+        nulls.set(to, nulls.get(from));
+    }
+
+    @Override
+    void resize(int capacity) {
+        //bit sets grow on their own
+    }
+
+    @Override
+    TableColumn copy() {
+        return new BooleanColumn(this);
+    }
+}
@@ -0,0 +1,12 @@
+package edu.css.db;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public interface ChangeListener {
+
+    //called after the stored entities of the class changed, by this process or by another one,
+    //a commit of this process is announced on the committing thread once end() has released its locks
+    void changed(Class<?> entityClass);
+}
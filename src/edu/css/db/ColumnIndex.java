@@ -0,0 +1,104 @@
+package edu.css.db;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class ColumnIndex {
+    private final IndexType type;
+    private final Map<Object, Set<Object>> entries;
+    private final Set<Object> nullEntries;
+
+    ColumnIndex(IndexType type) {
+        assert type != null : "index type cannot be null";
+
+        this.type = type;
+        this.entries = type == IndexType.SORTED ? new TreeMap<Object, Set<Object>>() : new HashMap<Object, Set<Object>>();
+        this.nullEntries = new LinkedHashSet<>();
+    }
+
+    ColumnIndex(ColumnIndex other) {
+        this(other.type);
+
+        for (Map.Entry<Object, Set<Object>> valueToKeys : other.entries.entrySet()) {
+            entries.put(valueToKeys.getKey(), new LinkedHashSet<>(valueToKeys.getValue()));
+        }
+        nullEntries.addAll(other.nullEntries);
+    }
+
+    IndexType getType() {
+        return type;
+    }
+
+    void add(Object value, Object key) {
+        if (value == null) {
+            nullEntries.add(key);
+            return;
+        }
+        Set<Object> keys = entries.get(value);
+        if (keys == null) {
+            keys = new LinkedHashSet<>();
+            entries.put(value, keys);
+        }
+        keys.add(key);
+    }
+
+    void remove(Object value, Object key) {
+        if (value == null) {
+            nullEntries.remove(key);
+            return;
+        }
+        Set<Object> keys = entries.get(value);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                entries.remove(value);
+            }
+        }
+    }
+
+    Collection<Object> find(Object value) {
+        if (value == null) {
+            return Collections.unmodifiableSet(nullEntries);
+        }
+        Set<Object> keys = entries.get(value);
+        if (keys == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(keys);
+    }
+
+    Collection<Object> findRange(Operator operator, Object value) {
+        assert type == IndexType.SORTED : "only sorted indexes can be searched by range";
+        assert operator.isRange() && value != null : "range search needs a range operator and a value";
+
+        NavigableMap<Object, Set<Object>> sorted = (NavigableMap<Object, Set<Object>>) entries;
+        switch (operator) {
+            case LT:
+                return keysOf(sorted.headMap(value, false));
+            case LE:
+                return keysOf(sorted.headMap(value, true));
+            case GT:
+                return keysOf(sorted.tailMap(value, false));
+            default:
+                return keysOf(sorted.tailMap(value, true));
+        }
+    }
+
+    private static Collection<Object> keysOf(Map<Object, Set<Object>> valueToKeys) {
+        Set<Object> keys = new LinkedHashSet<>();
+        for (Set<Object> valueKeys : valueToKeys.values()) {
+            keys.addAll(valueKeys);
+        }
+        return keys;
+    }
+}
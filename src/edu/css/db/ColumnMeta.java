@@ -0,0 +1,41 @@
+package edu.css.db;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class ColumnMeta {
+    private String name;
+    private String type;
+    private boolean key;
+    private ColumnParser columnParser;
+    private IndexType indexType;
+
+    ColumnMeta(String name, String type, boolean key, ColumnParser columnParser, IndexType indexType) {
+        this.name = name;
+        this.type = type;
+        this.key = key;
+        this.columnParser = columnParser;
+        this.indexType = indexType;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getType() {
+        return type;
+    }
+
+    boolean isKey() {
+        return key;
+    }
+
+    ColumnParser getParser() {
+        return columnParser;
+    }
+
+    IndexType getIndexType() {
+        return indexType;
+    }
+}
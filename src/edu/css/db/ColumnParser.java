@@ -0,0 +1,18 @@
+package edu.css.db;
+
+import edu.css.json.JsonReader;
+import edu.css.json.JsonWriter;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+interface ColumnParser {
+    Object read(JsonReader reader);
+
+    void write(JsonWriter writer, Object obj);
+
+    TableColumn createColumn(int capacity);
+
+    Class getType();
+}
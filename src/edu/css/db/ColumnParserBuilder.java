@@ -0,0 +1,137 @@
+package edu.css.db;
+
+import edu.css.json.JsonReader;
+import edu.css.json.JsonToken;
+import edu.css.json.JsonWriter;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class ColumnParserBuilder {
+
+    public static final ColumnParser INT_PARSER = new ColumnParser() {
+        @Override
+        public Integer read(JsonReader reader) {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            return reader.nextInt();
+        }
+
+        @Override
+        public void write(JsonWriter writer, Object obj) {
+            assert obj == null || obj instanceof Integer : "object value must be of type Integer";
+            writer.value((Integer) obj);
+        }
+
+        @Override
+        public TableColumn createColumn(int capacity) {
+            return new IntColumn(capacity);
+        }
+
+        @Override
+        public Class getType() {
+            return Integer.class;
+        }
+    };
+    public static final ColumnParser STRING_PARSER = new ColumnParser() {
+        @Override
+        public String read(JsonReader reader) {
+            return reader.nextString();
+        }
+
+        @Override
+        public void write(JsonWriter writer, Object obj) {
+            assert obj == null || obj instanceof String : "object value must be of type String";
+            writer.value((String) obj);
+        }
+
+        @Override
+        public TableColumn createColumn(int capacity) {
+            return new StringColumn(capacity);
+        }
+
+        @Override
+        public Class getType() {
+            return String.class;
+        }
+    };
+
+    public static final ColumnParser BOOLEAN_PARSER = new ColumnParser() {
+        @Override
+        public Boolean read(JsonReader reader) {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            return reader.nextBoolean();
+        }
+
+        @Override
+        public void write(JsonWriter writer, Object obj) {
+            assert obj == null || obj instanceof Boolean : "object value must be of type Boolean";
+            writer.value((Boolean) obj);
+        }
+
+        @Override
+        public TableColumn createColumn(int capacity) {
+            return new BooleanColumn();
+        }
+
+        @Override
+        public Class getType() {
+            return Boolean.class;
+        }
+    };
+    public static final ColumnParser DECIMAL_PARSER = new ColumnParser() {
+        @Override
+        public Double read(JsonReader reader) {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            return reader.nextDouble();
+        }
+
+        @Override
+        public void write(JsonWriter writer, Object obj) {
+            if (obj instanceof Integer) {
+                writer.value(((Integer) obj).doubleValue());
+            } else {
+                assert obj == null || obj instanceof Double : "object value must be of type Double or Integer";
+                writer.value((Double) obj);
+            }
+        }
+
+        @Override
+        public TableColumn createColumn(int capacity) {
+            return new DecimalColumn(capacity);
+        }
+
+        @Override
+        public Class getType() {
+            return Double.class;
+        }
+    };
+    public static ColumnParser fromType(String type) {
+        if (type.equals("int")) {
+            return INT_PARSER;
+        }
+
+        if (type.equals("string")) {
+            return STRING_PARSER;
+        }
+
+        if (type.equals("boolean")) {
+            return BOOLEAN_PARSER;
+        }
+
+        if (type.equals("decimal")) {
+            return DECIMAL_PARSER;
+        }
+
+        throw new DBParseException("Unsupported column type: " + type);
+    }
+}
@@ -0,0 +1,79 @@
+package edu.css.db;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class DatabaseState {
+    static final DatabaseState EMPTY = new DatabaseState(
+            Collections.<String, Table>emptyMap(), Collections.<String, Integer>emptyMap());
+
+    private final Map<String, Table> tables;
+    private final Map<String, Integer> sequences;
+
+    DatabaseState(Map<String, Table> tables, Map<String, Integer> sequences) {
+        assert tables != null : "tables cannot be null";
+        assert sequences != null : "sequences cannot be null";
+
+        this.tables = Collections.unmodifiableMap(tables);
+        this.sequences = Collections.unmodifiableMap(sequences);
+    }
+
+    Table getTable(String entityName) {
+        return tables.get(entityName);
+    }
+
+    Integer getSequence(String entityName) {
+        return sequences.get(entityName);
+    }
+
+    Map<String, Table> getTables() {
+        return tables;
+    }
+
+    Map<String, Integer> getSequences() {
+        return sequences;
+    }
+
+    DatabaseState withChanges(Map<String, Table> changedTables, Map<String, Integer> changedSequences) {
+        Map<String, Table> newTables = new LinkedHashMap<>(tables);
+        newTables.putAll(changedTables);
+        Map<String, Integer> newSequences = new LinkedHashMap<>(sequences);
+        newSequences.putAll(changedSequences);
+        return new DatabaseState(newTables, newSequences);
+    }
+
+    DatabaseState replay(List<LogRecord> records) {
+        if (records.isEmpty()) {
+            return this;
+        }
+
+        Map<String, Table> newTables = new LinkedHashMap<>(tables);
+        Map<String, Integer> newSequences = new LinkedHashMap<>(sequences);
+        Set<String> copiedTables = new HashSet<>();
+
+        for (LogRecord record : records) {
+            for (LogRecord.Operation operation : record.getOperations()) {
+                String entityName = operation.getEntityName();
+                if (copiedTables.add(entityName)) {
+                    newTables.put(entityName, new Table(newTables.get(entityName)));
+                }
+
+                if (operation.isDelete()) {
+                    newTables.get(entityName).delete(operation.getKey());
+                } else {
+                    newTables.get(entityName).upsert(operation.getRow());
+                }
+            }
+            newSequences.putAll(record.getSequences());
+        }
+        return new DatabaseState(newTables, newSequences);
+    }
+}
@@ -0,0 +1,111 @@
+package edu.css.db;
+
+import edu.css.json.JsonReader;
+import edu.css.json.JsonToken;
+import edu.css.json.JsonWriter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class DecimalColumn extends NumericColumn {
+    private double[] values;
+    private final BitSet nulls;
+
+    DecimalColumn(int capacity) {
+        this.values = new double[capacity];
+        this.nulls = new BitSet();
+    }
+
+    private DecimalColumn(DecimalColumn other) {
+        this.values = other.values.clone();
+        this.nulls = (BitSet) other.nulls.clone();
+    }
+
+    @Override
+    Double get(int slot) {
+        return nulls.get(slot) ? null : values[slot];
+    }
+
+    @Override
+    double getDouble(int slot) {
+        return values[slot];
+    }
+
+    @Override
+    void set(int slot, Object value) {
+        assert value == null || value instanceof Number : "object value must be of type Double or Integer";
+        nulls.set(slot, value == null);
+        values[slot] = value == null ? 0 : ((Number) value).doubleValue();
+    }
+
+    @Override
+    boolean matches(int slot, Object value) {
+        if (value == null || nulls.get(slot)) {
+            return value == null && nulls.get(slot);
+        }
+        return value instanceof Double && Double.compare(values[slot], (Double) value) == 0;
+    }
+
+    @Override
+    boolean isNull(int slot) {
+        return nulls.get(slot);
+    }
+
+    @Override
+    Object normalize(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+
+    @Override
+    int compareValue(int slot, Object value) {
+        return Double.compare(values[slot], (Double) value);
+    }
+
+    @Override
+    int compareSlots(int first, int second) {
+        if (nulls.get(first) || nulls.get(second)) {
+            return Boolean.compare(!nulls.get(first), !nulls.get(second));
+        }
+        return Double.compare(values[first], values[second]);
+    }
+
+    @Override
+    void read(int slot, JsonReader reader) {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            set(slot, null);
+        } else {
+            nulls.clear(slot);
+            values[slot] = reader.nextDouble();
+        }
+    }
+
+    @Override
+    void write(int slot, JsonWriter writer) {
+        if (nulls.get(slot)) {
+            writer.nullValue();
+        } else {
+            writer.value(values[slot]);
+        }
+    }
+
+    @Override
+    void move(int from, int to) {
+        values[to] = values[from];
+        nulls.set(to, nulls.get(from));
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    TableColumn copy() {
+        return new DecimalColumn(this);
+    }
+}
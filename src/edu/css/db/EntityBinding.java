@@ -0,0 +1,156 @@
+package edu.css.db;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class EntityBinding<T> {
+    private final Class<T> clazz;
+    private final EntityMeta meta;
+    private final Constructor<T> constructor;
+    private final Field[] fields;
+    private final Field keyField;
+
+    EntityBinding(Class<T> clazz, EntityMeta meta) {
+        assert clazz != null : "entity class cannot be null";
+        assert meta != null : "entity metadata cannot be null";
+
+        this.clazz = clazz;
+        this.meta = meta;
+        this.constructor = getConstructor(clazz);
+
+        List<String> columns = meta.getOrderedColumns();
+        this.fields = new Field[columns.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = getField(clazz, columns.get(i));
+        }
+        this.keyField = fields[meta.getKeyIndex()];
+    }
+
+    private static <T> Constructor<T> getConstructor(Class<T> clazz) {
+        try {
+            Constructor<T> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            assert constructor.isAccessible() : "making the constructor accessible has failed";
+            return constructor;
+        } catch (NoSuchMethodException e) {
+            throw new DBParseException("Error getting class constructor", e);
+        }
+    }
+
+    private static Field getField(Class<?> clazz, String columnName) {
+        try {
+            Field field = clazz.getDeclaredField(columnName);
+            field.setAccessible(true);
+            assert field.isAccessible() : "making the data field accessible has failed";
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new DBParseException("Error getting entity field", e);
+        }
+    }
+
+    Class<T> getEntityClass() {
+        return clazz;
+    }
+
+    EntityMeta getMeta() {
+        return meta;
+    }
+
+    T load(Object[] row) {
+        assert row != null && row.length == fields.length : "row does not match entity columns";
+
+        T entity = newInstance();
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                fields[i].set(entity, row[i]);
+            }
+        } catch (IllegalAccessException e) {
+            throw new DBParseException(e);
+        }
+        return entity;
+    }
+
+    T load(Object[] row, int[] projection) {
+        assert row != null && row.length == fields.length : "row does not match entity columns";
+        assert projection != null : "projection cannot be null";
+
+        T entity = newInstance();
+        try {
+            for (int column : projection) {
+                fields[column].set(entity, row[column]);
+            }
+        } catch (IllegalAccessException e) {
+            throw new DBParseException(e);
+        }
+        return entity;
+    }
+
+    Iterator<T> loadAll(final Iterator<Object[]> rows) {
+        assert rows != null : "rows cannot be null";
+
+        //entities are only created as the iterator advances
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return load(rows.next());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    Object[] serialize(T entity) {
+        assert entity != null : "cannot serialize a null entity";
+
+        Object[] row = new Object[fields.length];
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                row[i] = fields[i].get(entity);
+            }
+        } catch (IllegalAccessException e) {
+            throw new DBParseException("Error getting field value", e);
+        }
+        return row;
+    }
+
+    Integer getKey(T entity) {
+        try {
+            Object key = keyField.get(entity);
+            assert key == null || key instanceof Integer : "wrong type for key field value";
+            return (Integer) key;
+        } catch (IllegalAccessException e) {
+            throw new DBParseException("Error getting key field value", e);
+        }
+    }
+
+    void setKey(T entity, Integer key) {
+        try {
+            keyField.set(entity, key);
+        } catch (IllegalAccessException e) {
+            throw new DBParseException(e);
+        }
+    }
+
+    private T newInstance() {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new DBParseException("Error creating entity", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package edu.css.db;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class EntityMeta {
+    private String name;
+    private Map<String, ColumnMeta> columns;
+    private List<String> orderedColumns;
+    private Map<String, Integer> columnIndexes;
+    private ColumnMeta keyColumn;
+    private int keyIndex = -1;
+
+    EntityMeta(String name, Map<String, ColumnMeta> columns, List<String> orderedColumns) {
+        this.name = name;
+        this.columns = columns;
+        this.orderedColumns = orderedColumns;
+        this.columnIndexes = new HashMap<>();
+
+        for (int i = 0; i < orderedColumns.size(); i++) {
+            ColumnMeta columnMeta = columns.get(orderedColumns.get(i));
+            columnIndexes.put(columnMeta.getName(), i);
+            if (columnMeta.isKey() && keyColumn == null) {
+                keyColumn = columnMeta;
+                keyIndex = i;
+            }
+        }
+    }
+
+    List<String> getOrderedColumns() {
+        return orderedColumns;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Map<String, ColumnMeta> getColumns() {
+        return columns;
+    }
+
+    ColumnMeta getColumn(int column) {
+        return columns.get(orderedColumns.get(column));
+    }
+
+    int getColumnIndex(String columnName) {
+        Integer column = columnIndexes.get(columnName);
+        return column == null ? -1 : column;
+    }
+
+    public ColumnMeta getKeyColumn() {
+        return keyColumn;
+    }
+
+    int getKeyIndex() {
+        return keyIndex;
+    }
+}
@@ -0,0 +1,135 @@
+package edu.css.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class FileMutex {
+    //a file lock belongs to the whole process, so the instances inside it take turns on one mutex per file
+    private static final ConcurrentMap<String, FileMutex> mutexes = new ConcurrentHashMap<>();
+    private static final long POLL_MILLIS = 10;
+
+    private final File file;
+
+    //guarded by this
+    private Object owner = null;
+    private int holds = 0;
+    private FileChannel channel = null;
+    private FileLock lock = null;
+
+    private FileMutex(File file) {
+        this.file = file;
+    }
+
+    static FileMutex of(File file) {
+        assert file != null : "cannot lock a null file";
+
+        String path = file.getAbsoluteFile().toPath().normalize().toString();
+        FileMutex mutex = mutexes.get(path);
+        if (mutex == null) {
+            FileMutex newMutex = new FileMutex(file);
+            mutex = mutexes.putIfAbsent(path, newMutex);
+            if (mutex == null) {
+                mutex = newMutex;
+            }
+        }
+        return mutex;
+    }
+
+    //the owner may take the mutex again while it holds it, it is released once every hold is given back
+    synchronized boolean acquire(Object owner, long timeoutMillis) {
+        assert owner != null : "mutex owner cannot be null";
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (this.owner != null && this.owner != owner) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            waitFor(remaining);
+        }
+
+        if (this.owner == null) {
+            if (!lockFile(deadline)) {
+                return false;
+            }
+            this.owner = owner;
+        }
+        holds++;
+        return true;
+    }
+
+    synchronized boolean isHeldBy(Object owner) {
+        return this.owner == owner;
+    }
+
+    synchronized void release(Object owner) {
+        assert this.owner == owner && holds > 0 : "mutex is not held by the owner";
+
+        if (--holds > 0) {
+            return;
+        }
+        try {
+            lock.release();
+            channel.close();
+        } catch (IOException e) {
+            throw new DBParseException("Error unlocking " + file, e);
+        } finally {
+            lock = null;
+            channel = null;
+            this.owner = null;
+            notifyAll();
+        }
+    }
+
+    private boolean lockFile(long deadline) {
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            //another process gives no notice when it lets go, so the lock is polled
+            while ((lock = channel.tryLock()) == null) {
+                if (System.currentTimeMillis() >= deadline) {
+                    closeChannel();
+                    return false;
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+            return true;
+        } catch (IOException e) {
+            closeChannel();
+            throw new DBParseException("Error locking " + file, e);
+        } catch (InterruptedException e) {
+            closeChannel();
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void closeChannel() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            //the channel is dropped either way, closing it only gives the descriptor back
+        } finally {
+            channel = null;
+        }
+    }
+
+    private void waitFor(long millis) {
+        try {
+            wait(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DBParseException("Interrupted while waiting for " + file, e);
+        }
+    }
+}
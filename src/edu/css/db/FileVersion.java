@@ -0,0 +1,67 @@
+package edu.css.db;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class FileVersion {
+    private static final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final long lastModified;
+    private final long length;
+    private final long generation;
+
+    private FileVersion(long lastModified, long length, long generation) {
+        this.lastModified = lastModified;
+        this.length = length;
+        this.generation = generation;
+    }
+
+    static FileVersion of(File file) {
+        assert file != null : "cannot get the version of a null file";
+        return new FileVersion(file.lastModified(), file.length(), generationCounter(file).get());
+    }
+
+    static void markWritten(File file) {
+        assert file != null : "cannot mark a null file as written";
+        generationCounter(file).incrementAndGet();
+    }
+
+    private static AtomicLong generationCounter(File file) {
+        String path = file.getAbsoluteFile().toPath().normalize().toString();
+        AtomicLong generation = generations.get(path);
+        if (generation == null) {
+            AtomicLong newGeneration = new AtomicLong();
+            generation = generations.putIfAbsent(path, newGeneration);
+            if (generation == null) {
+                generation = newGeneration;
+            }
+        }
+        return generation;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FileVersion)) {
+            return false;
+        }
+        FileVersion that = (FileVersion) o;
+        return lastModified == that.lastModified && length == that.length && generation == that.generation;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (lastModified ^ (lastModified >>> 32));
+        result = 31 * result + (int) (length ^ (length >>> 32));
+        result = 31 * result + (int) (generation ^ (generation >>> 32));
+        return result;
+    }
+}
@@ -0,0 +1,10 @@
+package edu.css.db;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+enum IndexType {
+    HASH,
+    SORTED
+}
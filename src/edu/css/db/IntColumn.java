@@ -0,0 +1,115 @@
+package edu.css.db;
+
+import edu.css.json.JsonReader;
+import edu.css.json.JsonToken;
+import edu.css.json.JsonWriter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class IntColumn extends NumericColumn {
+    private int[] values;
+    private final BitSet nulls;
+
+    IntColumn(int capacity) {
+        this.values = new int[capacity];
+        this.nulls = new BitSet();
+    }
+
+    private IntColumn(IntColumn other) {
+        this.values = other.values.clone();
+        this.nulls = (BitSet) other.nulls.clone();
+    }
+
+    @Override
+    boolean isNull(int slot) {
+        return nulls.get(slot);
+    }
+
+    int getInt(int slot) {
+        return values[slot];
+    }
+
+    @Override
+    double getDouble(int slot) {
+        return values[slot];
+    }
+
+    @Override
+    Integer get(int slot) {
+        return nulls.get(slot) ? null : values[slot];
+    }
+
+    @Override
+    void set(int slot, Object value) {
+        assert value == null || value instanceof Integer : "object value must be of type Integer";
+        nulls.set(slot, value == null);
+        values[slot] = value == null ? 0 : (Integer) value;
+    }
+
+    @Override
+    boolean matches(int slot, Object value) {
+        if (value == null || nulls.get(slot)) {
+            return value == null && nulls.get(slot);
+        }
+        return value instanceof Integer && values[slot] == (Integer) value;
+    }
+
+    @Override
+    Object normalize(Object value) {
+        return value instanceof Integer ? value : null;
+    }
+
+    @Override
+    int compareValue(int slot, Object value) {
+        return Integer.compare(values[slot], (Integer) value);
+    }
+
+    @Override
+    int compareSlots(int first, int second) {
+        if (nulls.get(first) || nulls.get(second)) {
+            return Boolean.compare(!nulls.get(first), !nulls.get(second));
+        }
+        return Integer.compare(values[first], values[second]);
+    }
+
+    @Override
+    void read(int slot, JsonReader reader) {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            set(slot, null);
+        } else {
+            nulls.clear(slot);
+            values[slot] = reader.nextInt();
+        }
+    }
+
+    @Override
+    void write(int slot, JsonWriter writer) {
+        if (nulls.get(slot)) {
+            writer.nullValue();
+        } else {
+            writer.value(values[slot]);
+        }
+    }
+
+    @Override
+    void move(int from, int to) {
+        values[to] = values[from];
+        nulls.set(to, nulls.get(from));
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    TableColumn copy() {
+        return new IntColumn(this);
+    }
+}
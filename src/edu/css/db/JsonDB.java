@@ -1,5 +1,7 @@
 package edu.css.db;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -13,9 +15,27 @@ public interface JsonDB {
 
     <T> List<T> getAll(Class<T> clazz);
 
+    <T> Iterator<T> iterate(Class<T> clazz);
+
     <T> T find(Integer id, Class<T> clazz);
 
+    <T> List<T> findBy(String column, Object value, Class<T> clazz);
+
+    <T> Query<T> query(Class<T> clazz);
+
+    <T> int count(Class<T> clazz);
+
+    <T> Page<T> getPage(Class<T> clazz, int pageSize, Integer afterKey);
+
+    void addChangeListener(ChangeListener listener);
+
+    void compact();
+
     <T> void delete(T entity);
 
     <T> void save(T entity);
+
+    <T> void saveAll(Collection<? extends T> entities);
+
+    <T> void deleteAll(Collection<? extends T> entities);
 }
@@ -1,39 +1,65 @@
 package edu.css.db;
 
-
 import com.google.common.base.Joiner;
+import com.google.common.io.ByteStreams;
 import edu.css.json.JsonParser;
+import edu.css.json.JsonReader;
+import edu.css.json.JsonWriter;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static edu.css.db.ColumnParserBuilder.fromType;
 import static edu.css.json.JsonParser.*;
 import static java.beans.Introspector.decapitalize;
 import static java.io.File.separator;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * Catalin Dumitru
  * Universitatea Alexandru Ioan Cuza
  */
 public class JsonDBImpl implements JsonDB {
+    private static final long LOCK_TIMEOUT_SECONDS = 10;
+
     private final File metaFile;
     private final File dataFile;
+    private final String storePrefix;
     private final Map<String, EntityMeta> entities = new HashMap<>();
+    private final ConcurrentMap<Class<?>, EntityBinding<?>> bindings = new ConcurrentHashMap<>();
+
+    //each table is written under its own lock, readers never wait for any of them
+    private final Map<String, TableStore> stores = new TreeMap<>();
+    private volatile DatabaseState state = DatabaseState.EMPTY;
+    private final Object publishLock = new Object();
+    private final ThreadLocal<Transaction> transactions = new ThreadLocal<>();
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
 
-    private boolean closed = true;
-    private ObjectValue dbObject;
+    //guarded by all the table locks
+    private final Map<String, JsonValue> detachedData = new LinkedHashMap<>();
+    private String checkpoint = null;
+    private volatile FileVersion loadedVersion = null;
 
-    private JsonDBImpl(File metaFile, File dataFile) {
+    private JsonDBImpl(File metaFile, File dataFile, String storePrefix) {
         this.metaFile = metaFile;
         this.dataFile = dataFile;
+        this.storePrefix = storePrefix;
     }
 
     private JsonDBImpl performAndLoadValidation() {
@@ -41,10 +67,19 @@ public class JsonDBImpl implements JsonDB {
         checkIfDataExists();
         loadMetadata();
         checkIfKeyFieldExists();
+        createTableStores();
 
         return this;
     }
 
+    private void createTableStores() {
+        for (EntityMeta entityMeta : entities.values()) {
+            File segmentFile = new File(storePrefix + "." + entityMeta.getName() + ".json");
+            File logFile = new File(storePrefix + "." + entityMeta.getName() + ".log");
+            stores.put(entityMeta.getName(), new TableStore(entityMeta, segmentFile, logFile, entities));
+        }
+    }
+
     private void checkIfKeyFieldExists() {
         for (EntityMeta entityMeta : entities.values()) {
             if (entityMeta.getKeyColumn() == null) {
@@ -57,17 +92,20 @@ public class JsonDBImpl implements JsonDB {
     }
 
     private JsonDBImpl loadMetadata() {
-        try {
-            Scanner scanner = new Scanner(metaFile);
-            scanner.useDelimiter("\\Z");
-            ObjectValue jsonObject = new JsonParser().parse(scanner.next());
+        try (Reader reader = openReader(metaFile)) {
+            ObjectValue jsonObject = new JsonParser().parse(reader);
             loadMetadata(jsonObject);
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             throw new DBParseException("Error loading metadata", e);
         }
         return this;
     }
 
+    private Reader openReader(File file) throws FileNotFoundException {
+        assert file != null : "cannot read from a null file";
+        return new InputStreamReader(new FileInputStream(file), UTF_8);
+    }
+
     private void loadMetadata(ObjectValue jsonObject) {
         assert jsonObject != null : "metadata object cannot be null";
         ArrayValue entitiesArray = jsonObject.property("entities");
@@ -121,7 +159,25 @@ public class JsonDBImpl implements JsonDB {
 
         boolean isKey = jsonObject.has("id") && jsonObject.<BooleanValue>property("id").value();
 
-        return new ColumnMeta(name, type, isKey, fromType(type));
+        return new ColumnMeta(name, type, isKey, fromType(type), createIndexType(jsonObject, name));
+    }
+
+    private IndexType createIndexType(ObjectValue jsonObject, String columnName) {
+        if (!jsonObject.has("index")) {
+            return null;
+        }
+        JsonValue index = jsonObject.property("index");
+
+        if (index instanceof BooleanValue) {
+            return ((BooleanValue) index).value() ? IndexType.HASH : null;
+        }
+        if (index instanceof StringValue && ((StringValue) index).value().equals("hash")) {
+            return IndexType.HASH;
+        }
+        if (index instanceof StringValue && ((StringValue) index).value().equals("sorted")) {
+            return IndexType.SORTED;
+        }
+        throw new DBParseException("Unsupported index type for column: " + columnName);
     }
 
     private void checkIfDataExists() {
@@ -142,159 +198,657 @@ public class JsonDBImpl implements JsonDB {
 
     @Override
     public void begin() {
-        assert this.closed : "begin was called on an opened database";
-        this.closed = false;
+        assert transactions.get() == null : "begin was called on an opened database";
 
-        try {
-            Scanner scanner = new Scanner(dataFile);
-            scanner.useDelimiter("\\Z");
-            this.dbObject = new JsonParser().parse(scanner.next());
-        } catch (FileNotFoundException e) {
-            throw new DBParseException("Error loading metadata", e);
+        if (state == DatabaseState.EMPTY) {
+            //nothing was loaded yet, so there is no snapshot to read from until it is
+            lockAll();
+            try {
+                refreshIfStale();
+            } finally {
+                unlockAll();
+            }
+        } else {
+            refreshIfIdle();
         }
+        transactions.set(new Transaction(pinSnapshot()));
     }
 
-    @Override
-    public void end(boolean saveChanges) {
-        assert !this.closed : "end called before begin";
-        this.closed = true;
+    private DatabaseState pinSnapshot() {
+        synchronized (publishLock) {
+            DatabaseState snapshot = state;
+            for (Table table : snapshot.getTables().values()) {
+                table.pin();
+            }
+            return snapshot;
+        }
+    }
 
-        if (saveChanges) {
-            saveChanges();
+    private void unpinSnapshot(DatabaseState snapshot) {
+        synchronized (publishLock) {
+            for (Table table : snapshot.getTables().values()) {
+                table.unpin();
+            }
         }
     }
 
-    private void saveChanges() {
-        assert dbObject != null : "metadata must be loaded prior of saving";
-        String stringData = dbObject.toString();
+    private void refreshIfIdle() {
+        if (!FileVersion.of(dataFile).equals(loadedVersion)) {
+            if (tryLockAll()) {
+                try {
+                    refreshIfStale();
+                } finally {
+                    unlockAll();
+                }
+            }
+            return;
+        }
 
-        try {
-            assert dataFile != null : "data file must exist to save database";
-            assert dataFile.exists() : "data file must exist to save database";
+        for (TableStore store : stores.values()) {
+            //a table with an active writer gets published by that writer
+            if (store.isStale() && store.getLock().tryLock()) {
+                try {
+                    refreshTable(store);
+                } finally {
+                    store.getLock().unlock();
+                }
+            }
+        }
+    }
+
+    private void refreshIfStale() {
+        FileVersion currentVersion = FileVersion.of(dataFile);
+        if (!currentVersion.equals(loadedVersion)) {
+            reloadData(currentVersion);
+            return;
+        }
+
+        for (TableStore store : stores.values()) {
+            if (store.isStale()) {
+                refreshTable(store);
+            }
+        }
+    }
+
+    private void refreshTable(TableStore store) {
+        settle(store);
+        DatabaseState refreshed = store.refresh(state);
+        if (refreshed == null) {
+            loadedVersion = null;
+        } else {
+            publish(refreshed);
+            notifyChanged(refreshed.getTables().keySet());
+        }
+    }
+
+    private void reloadData(FileVersion currentVersion) {
+        loadedVersion = null;
+        for (TableStore store : stores.values()) {
+            settle(store);
+        }
 
-            FileWriter fileWriter = new FileWriter(dataFile);
-            fileWriter.write(stringData);
-            fileWriter.close();
+        DatabaseState base;
+        try (CheckedInputStream in = new CheckedInputStream(new FileInputStream(dataFile), new CRC32());
+             JsonReader reader = new JsonReader(in)) {
+            base = loadData(reader);
+            if (checkpoint == null) {
+                //table segments refer to the base snapshot by its checkpoint id, a snapshot written
+                //without one is named after its content, so opening it never has to rewrite it
+                checkpoint = contentCheckpoint(in);
+            }
         } catch (IOException e) {
-            throw new DBParseException("Error saving to file", e);
+            throw new DBParseException("Error loading data", e);
+        }
+
+        Map<String, Table> tables = new LinkedHashMap<>();
+        Map<String, Integer> sequences = new LinkedHashMap<>(base.getSequences());
+        for (String entityName : base.getTables().keySet()) {
+            DatabaseState loaded = stores.get(entityName).load(base.getTable(entityName),
+                    base.getSequence(entityName), checkpoint, dataFile.length());
+            tables.putAll(loaded.getTables());
+            sequences.remove(entityName);
+            sequences.putAll(loaded.getSequences());
+        }
+        synchronized (publishLock) {
+            state = new DatabaseState(tables, sequences);
+        }
+        loadedVersion = currentVersion;
+        notifyChanged(tables.keySet());
+    }
+
+    private static String contentCheckpoint(CheckedInputStream in) throws IOException {
+        //the checksum has to cover whatever the reader left unread at the end of the file
+        ByteStreams.copy(in, ByteStreams.nullOutputStream());
+        return "crc32:" + Long.toHexString(in.getChecksum().getValue());
+    }
+
+    private void publish(DatabaseState changes) {
+        synchronized (publishLock) {
+            state = state.withChanges(changes.getTables(), changes.getSequences());
+        }
+    }
+
+    //readers only ever see durable commits, they are published once their log records are written
+    private void publishDurable(TableStore store) {
+        String entityName = store.getName();
+        synchronized (publishLock) {
+            List<LogRecord> records = store.takeDurable();
+            if (records.isEmpty()) {
+                return;
+            }
+
+            //the published table is changed in place, unless a transaction still reads it
+            Table table = state.getTable(entityName);
+            if (table.isInUse()) {
+                table = new Table(table);
+            }
+            Map<String, Integer> sequences = new HashMap<>();
+            for (LogRecord record : records) {
+                table.apply(record);
+                sequences.putAll(record.getSequences());
+            }
+            state = state.withChanges(Collections.singletonMap(entityName, table), sequences);
+        }
+    }
+
+    //waits for the commits queued in the table log, so that the table can be reloaded or rewritten
+    private void settle(TableStore store) {
+        store.getLog().drain();
+        publishDurable(store);
+    }
+
+    private void notifyChanged(Collection<String> entityNames) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (EntityBinding<?> binding : bindings.values()) {
+            if (entityNames.contains(binding.getMeta().getName())) {
+                for (ChangeListener listener : listeners) {
+                    listener.changed(binding.getEntityClass());
+                }
+            }
         }
     }
 
     @Override
-    public <T> List<T> getAll(Class<T> clazz) {
-        assert clazz != null : "entity class must not be null";
+    public void addChangeListener(ChangeListener listener) {
+        assert listener != null : "change listener cannot be null";
 
-        checkIfOpened();
-        checkIfMetadata(clazz);
-        return getAllChecked(clazz);
+        listeners.add(listener);
     }
 
-    private <T> List<T> getAllChecked(Class<T> clazz) {
-        assert dbObject != null : "metadata must be loaded prior of saving";
-        return loadAll(dbObject, clazz);
+    @Override
+    public void compact() {
+        assert transactions.get() == null : "compact cannot be called inside a transaction";
+
+        lockAll();
+        List<TableStore> writing = newArrayList();
+        try {
+            for (TableStore store : stores.values()) {
+                if (!store.getLog().acquireWriter(TimeUnit.SECONDS.toMillis(LOCK_TIMEOUT_SECONDS))) {
+                    throw new DBParseException("Timed out waiting for table " + store.getName());
+                }
+                writing.add(store);
+            }
+            for (TableStore store : stores.values()) {
+                settle(store);
+            }
+            refreshIfStale();
+            if (loadedVersion == null) {
+                //a table could not be refreshed on its own, only a full reload brings it up to date
+                refreshIfStale();
+            }
+
+            boolean hasChanges = false;
+            for (TableStore store : stores.values()) {
+                hasChanges |= store.hasChanges();
+            }
+            if (!hasChanges) {
+                return;
+            }
+
+            //a crash after the new snapshot is written leaves segments and logs that no longer match it
+            writeCheckpoint(state);
+            for (TableStore store : stores.values()) {
+                store.reset(checkpoint, dataFile.length());
+            }
+            loadedVersion = FileVersion.of(dataFile);
+        } finally {
+            releaseWriters(writing);
+            unlockAll();
+        }
     }
 
-    private <T> List<T> loadAll(ObjectValue jsonObject, Class<T> clazz) {
-        if (!jsonObject.has("data")) {
-            return Collections.emptyList();
+    private void lockAll() {
+        for (TableStore store : stores.values()) {
+            store.getLock().lock();
         }
-        ObjectValue dataObject = jsonObject.property("data");
-        assert dataObject != null : "data object is null even though it exists";
-        return loadAllFromData(dataObject, clazz);
     }
 
-    private <T> List<T> loadAllFromData(ObjectValue dataObject, Class<T> clazz) {
-        String entityName = decapitalize(clazz.getSimpleName());
-        if (!dataObject.has(entityName)) {
-            return Collections.emptyList();
+    private boolean tryLockAll() {
+        List<TableStore> locked = newArrayList();
+        for (TableStore store : stores.values()) {
+            if (!store.getLock().tryLock()) {
+                for (TableStore lockedStore : locked) {
+                    lockedStore.getLock().unlock();
+                }
+                return false;
+            }
+            locked.add(store);
         }
-        ArrayValue entityArray = dataObject.property(entityName);
-        assert entityArray != null : "data array for entity does not exist";
-        Constructor<T> constructor = getConstructor(clazz);
-        assert constructor != null : "entity has no default constructor";
-        return loadAllFromArray(entityArray, entities.get(entityName), constructor);
+        return true;
     }
 
-    private <T> Constructor<T> getConstructor(Class<T> clazz) {
-        try {
-            assert clazz != null : "cannot get constructor of a null class";
-            return clazz.getConstructor();
-        } catch (NoSuchMethodException e) {
-            throw new DBParseException("Error getting class constructor", e);
+    private void unlockAll() {
+        for (TableStore store : stores.values()) {
+            store.getLock().unlock();
         }
     }
 
-    private <T> List<T> loadAllFromArray(ArrayValue entityArray, EntityMeta entityMeta, Constructor<T> constructor) {
-        List<T> rows = newArrayList();
+    private DatabaseState loadData(JsonReader reader) {
+        Map<String, Table> tables = new LinkedHashMap<>();
+        Map<String, Integer> sequences = new LinkedHashMap<>();
+        detachedData.clear();
+        checkpoint = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String property = reader.nextName();
+            if (property.equals("data")) {
+                loadTables(reader, tables);
+            } else if (property.equals("seq")) {
+                loadSequences(reader, sequences);
+            } else if (property.equals("checkpoint")) {
+                checkpoint = reader.nextString();
+            } else {
+                throw new DBParseException("Unknown property in data file: " + property);
+            }
+        }
+        reader.endObject();
+
+        addMissingTables(tables);
+        return new DatabaseState(tables, sequences);
+    }
+
+    private void loadTables(JsonReader reader, Map<String, Table> tables) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String entityName = reader.nextName();
+            EntityMeta entityMeta = entities.get(entityName);
 
-        for (JsonValue jsonValue : entityArray.properties()) {
-            T row = loadRow((ArrayValue) jsonValue, entityMeta, constructor);
-            assert row != null : "unable to create entity from row";
-            rows.add(row);
+            if (entityMeta == null) {
+                detachedData.put(entityName, new JsonParser().readValue(reader));
+            } else {
+                Table table = new Table(entityMeta);
+                table.read(reader);
+                tables.put(entityName, table);
+            }
         }
-        return rows;
+        reader.endObject();
     }
 
-    private <T> T loadRow(ArrayValue array, EntityMeta entityMeta, Constructor<T> constructor) {
-        T row = createNewInstance(constructor);
-        assert row != null : "new instance of entity cannot be null";
+    private void loadSequences(JsonReader reader, Map<String, Integer> sequences) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String entityName = reader.nextName();
+            sequences.put(entityName, reader.nextInt());
+        }
+        reader.endObject();
+    }
 
-        for (int i = 0; i < array.properties().size(); i++) {
-            String columnName = entityMeta.getOrderedColumns().get(i);
-            Object columnData = getColumnData(columnName, array.get(i), entityMeta);
-            setColumnData(row, columnData, columnName);
+    private void addMissingTables(Map<String, Table> tables) {
+        for (EntityMeta entityMeta : entities.values()) {
+            if (!tables.containsKey(entityMeta.getName())) {
+                tables.put(entityMeta.getName(), new Table(entityMeta));
+            }
         }
+    }
+
+    @Override
+    public void end(boolean saveChanges) {
+        Transaction transaction = transactions.get();
+        assert transaction != null : "end called before begin";
+        transactions.remove();
+        unpinSnapshot(transaction.getSnapshot());
 
-        return row;
+        List<TableStore> writing = newArrayList(transaction.getLockedStores());
+        Map<TableStore, Long> tickets = Collections.emptyMap();
+        try {
+            try {
+                if (saveChanges) {
+                    checkNotAborted(transaction);
+                    tickets = saveChanges(transaction);
+                }
+            } finally {
+                unlockTables(transaction);
+            }
+
+            //the table locks are released before waiting, so the next writers can join the same log flush,
+            //the log stays with this instance until the flush is done
+            DBParseException failure = null;
+            for (Map.Entry<TableStore, Long> storeToTicket : tickets.entrySet()) {
+                TableStore store = storeToTicket.getKey();
+                try {
+                    store.getLog().awaitDurable(storeToTicket.getValue());
+                } catch (DBParseException e) {
+                    store.invalidate();
+                    failure = failure == null ? e : failure;
+                }
+                publishDurable(store);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            releaseWriters(writing);
+        }
+
+        //announced once durable and unlocked, so listeners may start their own transactions
+        if (saveChanges) {
+            List<String> changed = newArrayList();
+            for (TableStore store : writing) {
+                if (transaction.hasChanges(store.getName())) {
+                    changed.add(store.getName());
+                }
+            }
+            notifyChanged(changed);
+        }
     }
 
-    private <T> void setColumnData(T row, Object columnData, String columnName) {
-        Field dataField = getField(columnName, row.getClass());
-        assert dataField != null : "field for column was not found";
-        dataField.setAccessible(true);
-        assert dataField.isAccessible() : "making the data field accessible has failed";
-        setFieldValue(row, columnData, dataField);
+    private void releaseWriters(List<TableStore> writing) {
+        for (TableStore store : writing) {
+            store.getLog().releaseWriter();
+        }
+    }
+
+    private void startWriting(Transaction transaction, String entityName) {
+        checkNotAborted(transaction);
+
+        TableStore store = stores.get(entityName);
+        assert store != null : "data table for entity does not exist";
+        if (transaction.getLockedStores().contains(store)) {
+            return;
+        }
+
+        if (!tryLock(store)) {
+            abort(transaction);
+            throw new DBParseException("Timed out waiting for table " + entityName);
+        }
+        //other processes append to the same log, they wait for this one until its commits are durable
+        if (!store.getLog().acquireWriter(TimeUnit.SECONDS.toMillis(LOCK_TIMEOUT_SECONDS))) {
+            store.getLock().unlock();
+            abort(transaction);
+            throw new DBParseException("Timed out waiting for table " + entityName);
+        }
+        transaction.getLockedStores().add(store);
+
+        //changes are always made on top of the latest version of the table
+        if (store.isStale()) {
+            refreshTable(store);
+        }
+        synchronized (publishLock) {
+            transaction.getGenerations().put(store, store.getGeneration());
+        }
+        //rows read from an older version would overwrite whatever was committed after them
+        if (transaction.getReadTables().contains(entityName) && !isSnapshotCurrent(transaction, store)) {
+            abort(transaction);
+            throw new DBParseException("Table " + entityName + " was changed after the transaction read it");
+        }
     }
 
-    private <T> void setFieldValue(T obj, Object value, Field field) {
+    private boolean tryLock(TableStore store) {
         try {
-            field.set(obj, value);
-        } catch (IllegalAccessException e) {
-            throw new DBParseException(e);
+            return store.getLock().tryLock(LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void abort(Transaction transaction) {
+        //nothing was committed yet, so the logs can be handed back right away
+        List<TableStore> writing = newArrayList(transaction.getLockedStores());
+        unlockTables(transaction);
+        releaseWriters(writing);
+        transaction.abort();
+    }
+
+    private void unlockTables(Transaction transaction) {
+        for (TableStore store : transaction.getLockedStores()) {
+            store.getLock().unlock();
         }
+        transaction.getLockedStores().clear();
     }
 
-    private <T> Field getField(String columnName, Class<T> clazz) {
+    private void checkNotAborted(Transaction transaction) {
+        if (transaction.isAborted()) {
+            throw new DBParseException("Transaction was aborted");
+        }
+    }
+
+    private Table readTable(String entityName) {
+        Transaction transaction = currentTransaction();
+        TableStore store = stores.get(entityName);
+        assert store != null : "data table for entity does not exist";
+
+        Table table = transaction.getChangedTables().get(entityName);
+        boolean writing = transaction.getLockedStores().contains(store);
+        if (table == null && writing && (transaction.hasChanges(entityName) || !isSnapshotCurrent(transaction, store))) {
+            //only a writer whose snapshot fell behind, or that reads back its own changes, pays for a private copy
+            table = latestTable(store);
+            table.apply(transaction.getChanges(entityName));
+            transaction.getChangedTables().put(entityName, table);
+        }
+        if (table == null) {
+            table = transaction.getSnapshot().getTable(entityName);
+            if (!writing) {
+                transaction.getReadTables().add(entityName);
+            }
+        }
+        return table;
+    }
+
+    //snapshot tables are pinned, so any commit on top of them replaces the published table
+    private boolean isSnapshotCurrent(Transaction transaction, TableStore store) {
+        synchronized (publishLock) {
+            return state.getTable(store.getName()) == transaction.getSnapshot().getTable(store.getName())
+                    && !store.hasPending();
+        }
+    }
+
+    //a copy of the published table with the commits still waiting for the log applied to it
+    private Table latestTable(TableStore store) {
+        synchronized (publishLock) {
+            Table table = new Table(state.getTable(store.getName()));
+            for (LogRecord record : store.getPending()) {
+                table.apply(record);
+            }
+            return table;
+        }
+    }
+
+    //the row as the writing transaction sees it: its own changes, then the queued commits, then the published table
+    private Object[] latestRow(Transaction transaction, String entityName, Integer key) {
+        LogRecord.Operation operation = transaction.getChanges(entityName).find(entityName, key);
+        if (operation != null) {
+            return operation.getRow();
+        }
+        synchronized (publishLock) {
+            operation = stores.get(entityName).findPending(key);
+            return operation != null ? operation.getRow() : state.getTable(entityName).find(key);
+        }
+    }
+
+    private Transaction currentTransaction() {
+        Transaction transaction = transactions.get();
+        if (transaction == null) {
+            throw new DBParseException("Database must be opened first");
+        }
+        return transaction;
+    }
+
+    private Map<TableStore, Long> saveChanges(Transaction transaction) {
+        Map<TableStore, Long> tickets = new LinkedHashMap<>();
+
         try {
-            assert clazz != null : "cannot get field from a null class";
-            return clazz.getDeclaredField(columnName);
-        } catch (NoSuchFieldException e) {
-            throw new DBParseException("Error getting entity field", e);
+            for (TableStore store : transaction.getLockedStores()) {
+                String entityName = store.getName();
+                LogRecord changes = transaction.getChanges(entityName);
+                Integer sequence = transaction.getChangedSequences().get(entityName);
+                if (sequence != null) {
+                    changes.sequence(entityName, sequence);
+                }
+                if (changes.isEmpty()) {
+                    continue;
+                }
+                checkGeneration(transaction, store);
+
+                long ticket = store.commit(changes);
+                if (ticket == WriteAheadLog.NO_TICKET) {
+                    writeSegment(transaction, store, changes);
+                    continue;
+                }
+                synchronized (publishLock) {
+                    store.addPending(ticket, changes);
+                }
+                if (store.isLogFull()) {
+                    //the log is folded into a new segment once this commit is durable
+                    writeSegment(transaction, store, new LogRecord());
+                    continue;
+                }
+                tickets.put(store, ticket);
+            }
+        } catch (DBParseException e) {
+            for (TableStore store : transaction.getLockedStores()) {
+                store.invalidate();
+            }
+            throw e;
         }
+        return tickets;
     }
 
-    private Object getColumnData(String columnName, JsonValue obj, EntityMeta entityMeta) {
-        assert entityMeta != null : "entity metadata cannot be null";
-        assert entityMeta.getColumns().containsKey(columnName) : "entity metadata does not contain column";
-        return entityMeta.getColumns().get(columnName).getParser().fromJson(obj);
+    private void checkGeneration(Transaction transaction, TableStore store) {
+        synchronized (publishLock) {
+            if (store.getGeneration() != transaction.getGenerations().get(store)) {
+                throw new DBParseException("Transaction read changes that could not be saved: " + store.getName());
+            }
+        }
+    }
+
+    private void writeSegment(Transaction transaction, TableStore store, LogRecord changes) {
+        settle(store);
+        checkGeneration(transaction, store);
+        Table table;
+        Integer sequence;
+        synchronized (publishLock) {
+            table = new Table(state.getTable(store.getName()));
+            sequence = state.getSequence(store.getName());
+        }
+        table.apply(changes);
+        if (changes.getSequences().containsKey(store.getName())) {
+            sequence = changes.getSequences().get(store.getName());
+        }
+
+        store.writeSegment(table, sequence);
+        publish(new DatabaseState(Collections.singletonMap(store.getName(), table),
+                sequence == null ? Collections.<String, Integer>emptyMap() : Collections.singletonMap(store.getName(), sequence)));
     }
 
-    private <T> T createNewInstance(Constructor<T> constructor) {
+    private void writeCheckpoint(DatabaseState newState) {
+        String newCheckpoint = UUID.randomUUID().toString();
+        File tempFile = new File(dataFile.getPath() + ".tmp");
+
         try {
-            assert constructor != null : "cannot create a new instance from a null constructor";
-            constructor.setAccessible(true);
-            assert constructor.isAccessible() : "making the constructor accessible has failed";
-            return constructor.newInstance();
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            throw new DBParseException("Error creating entity", e);
+            try (FileOutputStream out = new FileOutputStream(tempFile);
+                 JsonWriter writer = new JsonWriter(out)) {
+                writeData(writer, newState, newCheckpoint);
+                writer.flush();
+                out.getFD().sync();
+            }
+            Files.move(tempFile.toPath(), dataFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DBParseException("Error saving to file", e);
+        } finally {
+            FileVersion.markWritten(dataFile);
         }
+
+        checkpoint = newCheckpoint;
     }
 
-    private <T> void checkIfMetadata(Class<T> clazz) {
+    private void writeData(JsonWriter writer, DatabaseState newState, String checkpoint) {
+        writer.beginObject();
+
+        writer.name("data").beginObject();
+        for (Map.Entry<String, Table> nameToTable : newState.getTables().entrySet()) {
+            writer.name(nameToTable.getKey());
+            nameToTable.getValue().write(writer);
+        }
+        for (Map.Entry<String, JsonValue> nameToData : detachedData.entrySet()) {
+            writer.name(nameToData.getKey()).value(nameToData.getValue());
+        }
+        writer.endObject();
+
+        writer.name("seq").beginObject();
+        for (Map.Entry<String, Integer> nameToSequence : newState.getSequences().entrySet()) {
+            writer.name(nameToSequence.getKey()).value(nameToSequence.getValue());
+        }
+        writer.endObject();
+
+        writer.name("checkpoint").value(checkpoint);
+        writer.endObject();
+    }
+
+    @Override
+    public <T> List<T> getAll(Class<T> clazz) {
+        assert clazz != null : "entity class must not be null";
+
+        checkIfOpened();
+        return getAllChecked(clazz);
+    }
+
+    private <T> List<T> getAllChecked(Class<T> clazz) {
+        EntityBinding<T> binding = getBinding(clazz);
+        Table table = readTable(binding.getMeta().getName());
+
+        List<T> rows = newArrayList();
+        for (Object[] data : table.rows()) {
+            rows.add(binding.load(data));
+        }
+        return rows;
+    }
+
+    @Override
+    public <T> Iterator<T> iterate(Class<T> clazz) {
+        assert clazz != null : "entity class cannot be null";
+
+        checkIfOpened();
+        EntityBinding<T> binding = getBinding(clazz);
+        Table table = readTable(binding.getMeta().getName());
+        synchronized (publishLock) {
+            //the iterator outlives the transaction, so the table is never changed in place again
+            table.share();
+        }
+        return binding.loadAll(table.rows().iterator());
+    }
+
+    private <T> EntityBinding<T> getBinding(Class<T> clazz) {
+        //bindings are only ever stored under their own entity class
+        @SuppressWarnings("unchecked")
+        EntityBinding<T> binding = (EntityBinding<T>) bindings.get(clazz);
+        if (binding == null) {
+            binding = new EntityBinding<>(clazz, checkIfMetadata(clazz));
+            bindings.putIfAbsent(clazz, binding);
+        }
+        return binding;
+    }
+
+    private <T> EntityMeta checkIfMetadata(Class<T> clazz) {
         checkEntityAnnotation(clazz);
         EntityMeta metadata = checkMetadataPresent(clazz);
         assert metadata != null : "entity metadata was not found";
         checkFieldMetadata(clazz, metadata);
+        return metadata;
     }
 
     private <T> void checkFieldMetadata(Class<T> clazz, EntityMeta metadata) {
@@ -359,9 +913,7 @@ public class JsonDBImpl implements JsonDB {
     }
 
     private void checkIfOpened() {
-        if (closed) {
-            throw new DBParseException("Database must be opened first");
-        }
+        currentTransaction();
     }
 
     @Override
@@ -369,385 +921,322 @@ public class JsonDBImpl implements JsonDB {
         assert id != null : "entity id cannot be null";
         assert clazz != null : "entity class cannot be null";
 
-        List<T> loadedEntities = getAll(clazz);
-        for (T loadedEntity : loadedEntities) {
-            if (matches(loadedEntity, id, clazz)) {
-                return loadedEntity;
-            }
-        }
-        return null;
-    }
-
-    private <T> boolean matches(T loadedEntity, Integer id, Class<T> clazz) {
-        return getIdValue(loadedEntity, clazz).equals(id);
-    }
-
-    private <T> Integer getIdValue(T loadedEntity, Class<T> clazz) {
-        EntityMeta entityMeta = entities.get(decapitalize(clazz.getSimpleName()));
-        Field keyField = getField(entityMeta.getKeyColumn().getName(), clazz);
-
-        keyField.setAccessible(true);
-        assert keyField.isAccessible() : "making the key field accessible has failed";
-
-        Object keyFieldValue = getFieldValue(loadedEntity, keyField);
-        assert keyFieldValue instanceof Integer : "wrong type for key field value";
-        return (Integer) keyFieldValue;
-    }
+        checkIfOpened();
 
-    private <T> Object getFieldValue(T loadedEntity, Field keyField) {
-        try {
-            keyField.setAccessible(true);
-            assert keyField.isAccessible() : "making the key field accessible has failed";
-            return keyField.get(loadedEntity);
-        } catch (IllegalAccessException e) {
-            throw new DBParseException("Error getting key field value", e);
+        EntityBinding<T> binding = getBinding(clazz);
+        Object[] data = readTable(binding.getMeta().getName()).find(id);
+        if (data == null) {
+            return null;
         }
+        return binding.load(data);
     }
 
     @Override
-    public <T> void save(T entity) {
-        assert entity != null : "cannot save a null entity";
-
-        checkIfOpened();
-        checkIfMetadata(entity.getClass());
+    public <T> Query<T> query(Class<T> clazz) {
+        assert clazz != null : "entity class cannot be null";
 
-        updateKeyField(entity);
-        ArrayValue dataArray = serialize(entity);
-        save(dataArray, entity);
+        return new Query<>(this, clazz);
     }
 
-    private <T> void save(ArrayValue dataArray, T entity) {
-        ObjectValue dataObject = dbObject.property("data");
-
-        assert dataObject != null : "malformed data file";
-
-        ArrayValue entityArray = dataObject.property(decapitalize(entity.getClass().getSimpleName()));
-        saveOrUpdateEntity(dataArray, entityArray, entity);
+    @Override
+    public <T> int count(Class<T> clazz) {
+        return query(clazz).count();
     }
 
-    private <T> void saveOrUpdateEntity(ArrayValue dataArray, ArrayValue entityArray, T entity) {
-        tryToRemoveEntity(entityArray, entity);
-        entityArray.push(dataArray);
+    @Override
+    public <T> Page<T> getPage(Class<T> clazz, int pageSize, Integer afterKey) {
+        return query(clazz).page(pageSize, afterKey);
     }
 
-    private <T> void tryToRemoveEntity(ArrayValue dataArray, T entity) {
-        removeEntity(dataArray, entity);
-    }
+    <T> Page<T> page(Query<T> pageQuery, int pageSize, Integer afterKey) {
+        checkIfOpened();
 
-    private <T> void removeEntity(ArrayValue dataArray, T entity) {
-        ArrayValue entityArray = findArrayForEntity(dataArray, entity);
-        if (entityArray != null) {
-            dataArray.properties().remove(entityArray);
+        //the caller's query stays as it was, so it can be listed or paged again
+        Query<T> query = pageQuery.copy();
+        EntityBinding<T> binding = getBinding(query.getEntityClass());
+        EntityMeta meta = binding.getMeta();
+        String keyColumn = meta.getOrderedColumns().get(meta.getKeyIndex());
+        if (query.getOrderColumn() == null) {
+            query.orderBy(keyColumn);
+        } else if (!query.getOrderColumn().equals(keyColumn)) {
+            throw new DBParseException("Pages can only be ordered by the key column " + keyColumn);
         }
-    }
-
-    private <T> ArrayValue findArrayForEntity(ArrayValue dataArray, T entity) {
-        for (JsonValue jsonValue : dataArray.properties()) {
-            if (arrayForEntity((ArrayValue) jsonValue, entity)) {
-                return (ArrayValue) jsonValue;
-            }
+        if (afterKey != null) {
+            query.where(keyColumn, query.isDescending() ? Operator.LT : Operator.GT, afterKey);
         }
-        return null;
-    }
-
-    private <T> boolean arrayForEntity(ArrayValue jsonArray, T entity) {
-        String entityName = decapitalize(entity.getClass().getSimpleName());
-        Object row = loadRow(jsonArray, entities.get(entityName), getConstructor(entity.getClass()));
-        Object rowIdValue = getFieldValue(row, getField(entities.get(entityName).getKeyColumn().getName(), entity.getClass()));
-        Object idValue = getFieldValue(entity, getField(entities.get(entityName).getKeyColumn().getName(), entity.getClass()));
-        return rowIdValue.equals(idValue);
-    }
 
-    private <T> void updateKeyField(T entity) {
-        EntityMeta meta = entities.get(decapitalize(entity.getClass().getSimpleName()));
-        Field keyField = getField(meta.getKeyColumn().getName(), entity.getClass());
-        keyField.setAccessible(true);
-        updateKeyField(keyField, entity);
-    }
-
-    private <T> void updateKeyField(Field keyField, T entity) {
-        if (getFieldValue(entity, keyField) == null) {
-            Integer id = getNextSequence(decapitalize(entity.getClass().getSimpleName()));
-            setFieldValue(entity, id, keyField);
+        //one extra row tells whether another page follows
+        List<T> found = execute(query.limit(pageSize + 1));
+        if (found.size() <= pageSize) {
+            return new Page<>(found, null);
         }
+        List<T> items = newArrayList(found.subList(0, pageSize));
+        return new Page<>(items, binding.getKey(items.get(pageSize - 1)));
     }
 
-    private Integer getNextSequence(String entityName) {
-        ObjectValue seqObject = dbObject.property("seq");
-
-        assert seqObject != null : "missing seq property from data file";
-
-        return getNextSequence(seqObject, entityName);
+    <T> int count(Query<T> query) {
+        checkIfOpened();
+        return readTable(getBinding(query.getEntityClass()).getMeta().getName()).count(query);
     }
 
-    private int getNextSequence(ObjectValue seqObject, String entityName) {
-        int nextSeq = seqObject.<IntValue>property(entityName).value();
-        nextSeq++;
-        seqObject.set(entityName, new IntValue(nextSeq));
-        return nextSeq;
+    <T> Aggregate aggregate(Query<T> query, String column) {
+        checkIfOpened();
+        return readTable(getBinding(query.getEntityClass()).getMeta().getName()).aggregate(query, column);
     }
 
-    private <T> ArrayValue serialize(T entity) {
-        assert entity != null : "cannot serialize a null entity";
+    <T> Map<Object, Aggregate> groupBy(Query<T> query, String groupColumn, String column) {
+        checkIfOpened();
+        return readTable(getBinding(query.getEntityClass()).getMeta().getName()).groupBy(query, groupColumn, column);
+    }
 
-        ArrayValue dataArray = new ArrayValue();
-        EntityMeta meta = entities.get(decapitalize(entity.getClass().getSimpleName()));
-        assert meta != null : "metadata for entity is missing";
+    <T, U> List<Pair<T, U>> join(Query<T> query, String column, Query<U> other, String otherColumn) {
+        checkIfOpened();
 
-        for (JsonValue obj : serialize(entity, meta)) {
-            dataArray.push(obj);
+        EntityBinding<U> otherBinding = getBinding(other.getEntityClass());
+        Table otherTable = readTable(otherBinding.getMeta().getName());
+        int otherJoinColumn = otherTable.columnIndex(otherColumn);
+        int[] otherProjection = otherTable.projection(other.getSelectedColumns(), otherJoinColumn);
+
+        //the other side is hashed on its join column once, then each row of this side is a single lookup
+        Map<Object, List<U>> otherByValue = new HashMap<>();
+        for (Object[] data : otherTable.select(other, otherProjection)) {
+            Object value = data[otherJoinColumn];
+            if (value == null) {
+                continue;
+            }
+            List<U> matching = otherByValue.get(value);
+            if (matching == null) {
+                matching = newArrayList();
+                otherByValue.put(value, matching);
+            }
+            matching.add(otherProjection == null ? otherBinding.load(data) : otherBinding.load(data, otherProjection));
         }
-        return dataArray;
-    }
-
-    private <T> List<JsonValue> serialize(T entity, EntityMeta meta) {
-        List<JsonValue> objectValues = newArrayList();
 
-        for (String column : meta.getOrderedColumns()) {
-            objectValues.add(getEntityValue(entity, column, meta.getColumns().get(column)));
+        EntityBinding<T> binding = getBinding(query.getEntityClass());
+        Table table = readTable(binding.getMeta().getName());
+        int joinColumn = table.columnIndex(column);
+        int[] projection = table.projection(query.getSelectedColumns(), joinColumn);
+
+        List<Pair<T, U>> joined = newArrayList();
+        for (Object[] data : table.select(query, projection)) {
+            T entity = projection == null ? binding.load(data) : binding.load(data, projection);
+            List<U> matching = data[joinColumn] == null ? null : otherByValue.get(data[joinColumn]);
+            if (matching == null) {
+                joined.add(new Pair<T, U>(entity, null));
+                continue;
+            }
+            for (U otherEntity : matching) {
+                joined.add(new Pair<>(entity, otherEntity));
+            }
         }
-        return objectValues;
+        return joined;
     }
 
-    private <T> JsonValue getEntityValue(T entity, String column, ColumnMeta columnMeta) {
-        assert entity != null : "cannot get field value from a null entity";
+    <T> List<T> execute(Query<T> query) {
+        checkIfOpened();
 
-        Field columnField = getField(column, entity.getClass());
-        columnField.setAccessible(true);
-        assert columnField.isAccessible() : "making the column field accessible has failed";
-        return columnMeta.getParser().toJson(getFieldValue(entity, columnField));
-    }
+        EntityBinding<T> binding = getBinding(query.getEntityClass());
+        Table table = readTable(binding.getMeta().getName());
+        int[] projection = table.projection(query.getSelectedColumns());
 
-    @Override
-    public <T> void delete(T entity) {
-        checkIfOpened();
-        if (entity != null) {
-            checkIfMetadata(entity.getClass());
-            tryToDelete(entity);
+        List<T> found = newArrayList();
+        for (Object[] data : table.select(query, projection)) {
+            found.add(projection == null ? binding.load(data) : binding.load(data, projection));
         }
+        return found;
     }
 
-    private <T> void tryToDelete(T entity) {
-        ObjectValue dataObject = dbObject.property("data");
-
-        assert dataObject != null : "malformed data file";
-
-        ArrayValue entityArray = dataObject.property(decapitalize(entity.getClass().getSimpleName()));
-        removeEntity(entityArray, entity);
-    }
+    @Override
+    public <T> List<T> findBy(String column, Object value, Class<T> clazz) {
+        assert column != null : "column name cannot be null";
+        assert clazz != null : "entity class cannot be null";
 
-    public static JsonDB fromFile(String file) {
-        assert file != null : "database path cannot be null";
+        checkIfOpened();
 
-        file = convertPath(file);
-        int beginIndex = file.lastIndexOf(separator);
-        String dbName = file.substring(beginIndex == -1 ? 0 : beginIndex);
-        File metaFile = new File(file + separator + dbName + ".meta.json");
-        File dataFile = new File(file + separator + dbName + ".json");
+        EntityBinding<T> binding = getBinding(clazz);
+        Table table = readTable(binding.getMeta().getName());
+        int columnIndex = table.columnIndex(column);
+        Object columnValue = toColumnValue(table.getMeta().getColumns().get(column), value);
 
-        return new JsonDBImpl(metaFile, dataFile).performAndLoadValidation();
+        List<T> found = newArrayList();
+        for (Object[] data : table.findBy(columnIndex, columnValue)) {
+            found.add(binding.load(data));
+        }
+        return found;
     }
 
-    private static String convertPath(String file) {
-        if (file.indexOf('/') != -1) {
-            return Joiner.on(separator).join(file.split("/"));
+    private Object toColumnValue(ColumnMeta columnMeta, Object value) {
+        Class<?> type = columnMeta.getParser().getType();
+        if (value == null || type.isInstance(value)) {
+            return value;
         }
-        if (file.indexOf('\\') != -1) {
-            return Joiner.on(separator).join(file.split("\\\\"));
+        if (type.equals(Double.class) && value instanceof Number) {
+            return ((Number) value).doubleValue();
         }
-        return file;
+        throw new DBParseException("Invalid value for column " + columnMeta.getName() + ": " + value);
     }
-}
 
-class EntityMeta {
-    private String name;
-    private Map<String, ColumnMeta> columns;
-    private List<String> orderedColumns;
-
-    EntityMeta(String name, Map<String, ColumnMeta> columns, List<String> orderedColumns) {
-        this.name = name;
-        this.columns = columns;
-        this.orderedColumns = orderedColumns;
-    }
-
-    List<String> getOrderedColumns() {
-        return orderedColumns;
-    }
+    @Override
+    public <T> void save(T entity) {
+        assert entity != null : "cannot save a null entity";
 
-    String getName() {
-        return name;
+        checkIfOpened();
+        saveGroup(getBinding(entity.getClass()), Collections.<Object>singletonList(entity));
     }
 
-    Map<String, ColumnMeta> getColumns() {
-        return columns;
-    }
+    @Override
+    public <T> void saveAll(Collection<? extends T> entities) {
+        assert entities != null : "cannot save a null collection of entities";
 
-    public ColumnMeta getKeyColumn() {
-        for (ColumnMeta columnMeta : columns.values()) {
-            if (columnMeta.isKey()) {
-                return columnMeta;
-            }
+        checkIfOpened();
+        for (Map.Entry<EntityBinding<?>, List<Object>> bindingToEntities : groupByBinding(entities).entrySet()) {
+            saveGroup(bindingToEntities.getKey(), bindingToEntities.getValue());
         }
-        return null;
-    }
-}
-
-class ColumnMeta {
-    private String name;
-    private String type;
-    private boolean key;
-    private ColumnParser columnParser;
-
-    ColumnMeta(String name, String type, boolean key, ColumnParser columnParser) {
-        this.name = name;
-        this.type = type;
-        this.key = key;
-        this.columnParser = columnParser;
     }
 
-    String getName() {
-        return name;
+    private <E> void saveGroup(EntityBinding<E> binding, List<Object> entities) {
+        saveAllChecked(binding, castAll(binding, entities));
     }
 
-    String getType() {
-        return type;
-    }
+    private Map<EntityBinding<?>, List<Object>> groupByBinding(Collection<?> entities) {
+        Map<EntityBinding<?>, List<Object>> bindingToEntities = new LinkedHashMap<>();
+        for (Object entity : entities) {
+            assert entity != null : "cannot save or delete a null entity";
 
-    boolean isKey() {
-        return key;
+            EntityBinding<?> binding = getBinding(entity.getClass());
+            List<Object> bound = bindingToEntities.get(binding);
+            if (bound == null) {
+                bound = newArrayList();
+                bindingToEntities.put(binding, bound);
+            }
+            bound.add(entity);
+        }
+        return bindingToEntities;
     }
 
-    ColumnParser getParser() {
-        return columnParser;
+    //entities are grouped by their own class, so each of them is an instance of its binding's class
+    private <E> List<E> castAll(EntityBinding<E> binding, List<Object> entities) {
+        List<E> cast = newArrayList();
+        for (Object entity : entities) {
+            cast.add(binding.getEntityClass().cast(entity));
+        }
+        return cast;
     }
-}
-
-interface ColumnParser {
-    JsonValue toJson(Object obj);
 
-    Object fromJson(JsonValue data);
+    private <T> void saveAllChecked(EntityBinding<T> binding, List<T> entities) {
+        String entityName = binding.getMeta().getName();
+        Transaction transaction = currentTransaction();
+        startWriting(transaction, entityName);
 
-    Class getType();
-}
-
-class ColumnParserBuilder {
-
-    public static final ColumnParser INT_PARSER = new ColumnParser() {
-        @Override
-        public JsonValue toJson(Object obj) {
-            assert obj == null || obj instanceof Integer : "object value must be of type Integer";
-
-            return new IntValue((Integer) obj);
+        int missingKeys = 0;
+        for (T entity : entities) {
+            if (binding.getKey(entity) == null) {
+                missingKeys++;
+            }
         }
-
-        @Override
-        public Integer fromJson(JsonValue data) {
-            if (data instanceof NullValue) {
-                return null;
-            } else {
-                assert data instanceof IntValue : "json value must me of type IntValue";
-                return ((IntValue) data).value();
+        if (missingKeys > 0) {
+            int nextKey = reserveSequence(entityName, missingKeys);
+            for (T entity : entities) {
+                if (binding.getKey(entity) == null) {
+                    binding.setKey(entity, nextKey++);
+                }
             }
         }
 
-        @Override
-        public Class getType() {
-            return Integer.class;
-        }
-    };
-    public static final ColumnParser STRING_PARSER = new ColumnParser() {
-        @Override
-        public JsonValue toJson(Object obj) {
-            assert obj == null || obj instanceof String : "object value must be of type String";
-            return new StringValue((String) obj);
+        Table view = transaction.getChangedTables().get(entityName);
+        LogRecord changes = transaction.getChanges(entityName);
+        for (T entity : entities) {
+            Object[] row = binding.serialize(entity);
+            //saving an unchanged entity logs nothing
+            if (Arrays.equals(latestRow(transaction, entityName, binding.getKey(entity)), row)) {
+                continue;
+            }
+            changes.put(entityName, binding.getKey(entity), row);
+            if (view != null) {
+                view.upsert(row);
+            }
         }
+    }
 
-        @Override
-        public String fromJson(JsonValue data) {
-            if (data instanceof NullValue) {
-                return null;
-            } else {
-                assert data instanceof StringValue : "json value must me of type StringValue";
-                return ((StringValue) data).value();
+    private int reserveSequence(String entityName, int count) {
+        Transaction transaction = currentTransaction();
+        startWriting(transaction, entityName);
+
+        Map<String, Integer> changedSequences = transaction.getChangedSequences();
+        Integer currentSeq = changedSequences.get(entityName);
+        if (currentSeq == null) {
+            synchronized (publishLock) {
+                currentSeq = stores.get(entityName).findPendingSequence();
+                if (currentSeq == null) {
+                    currentSeq = state.getSequence(entityName);
+                }
             }
         }
+        int firstSeq = (currentSeq == null ? 0 : currentSeq) + 1;
+        changedSequences.put(entityName, firstSeq + count - 1);
+        return firstSeq;
+    }
 
-        @Override
-        public Class getType() {
-            return String.class;
+    @Override
+    public <T> void delete(T entity) {
+        checkIfOpened();
+        if (entity != null) {
+            deleteGroup(getBinding(entity.getClass()), Collections.<Object>singletonList(entity));
         }
-    };
+    }
 
-    public static final ColumnParser BOOLEAN_PARSER = new ColumnParser() {
-        @Override
-        public JsonValue toJson(Object obj) {
-            assert obj == null || obj instanceof Boolean : "object value must be of type Boolean";
-            return new BooleanValue((Boolean) obj);
-        }
+    @Override
+    public <T> void deleteAll(Collection<? extends T> entities) {
+        assert entities != null : "cannot delete a null collection of entities";
 
-        @Override
-        public Boolean fromJson(JsonValue data) {
-            if (data instanceof NullValue) {
-                return null;
-            } else {
-                assert data instanceof BooleanValue : "json value must me of type BooleanValue";
-                return ((BooleanValue) data).value();
-            }
+        checkIfOpened();
+        for (Map.Entry<EntityBinding<?>, List<Object>> bindingToEntities : groupByBinding(entities).entrySet()) {
+            deleteGroup(bindingToEntities.getKey(), bindingToEntities.getValue());
         }
+    }
 
-        @Override
-        public Class getType() {
-            return Boolean.class;
-        }
-    };
-    public static final ColumnParser DECIMAL_PARSER = new ColumnParser() {
-        @Override
-        public DoubleValue toJson(Object obj) {
-            if (obj instanceof Integer) {
-                return new DoubleValue(((Integer) obj).doubleValue());
-            } else {
-                assert obj == null || obj instanceof Double : "object value must be of type Double or Integer";
-                return new DoubleValue((Double) obj);
-            }
-        }
+    private <E> void deleteGroup(EntityBinding<E> binding, List<Object> entities) {
+        deleteAllChecked(binding, castAll(binding, entities));
+    }
 
-        @Override
-        public Double fromJson(JsonValue data) {
-            if (data instanceof NullValue) {
-                return null;
-            } else if (data instanceof IntValue) {
-                return ((IntValue) data).value().doubleValue();
-            } else {
-                assert data instanceof DoubleValue : "json value must me of type DoubleValue or IntValue";
-                return ((DoubleValue) data).value();
+    private <T> void deleteAllChecked(EntityBinding<T> binding, List<T> entities) {
+        String entityName = binding.getMeta().getName();
+        Transaction transaction = currentTransaction();
+        startWriting(transaction, entityName);
+
+        Table view = transaction.getChangedTables().get(entityName);
+        LogRecord changes = transaction.getChanges(entityName);
+        for (T entity : entities) {
+            Integer key = binding.getKey(entity);
+            if (key == null || latestRow(transaction, entityName, key) == null) {
+                continue;
+            }
+            changes.delete(entityName, key);
+            if (view != null) {
+                view.delete(key);
             }
         }
+    }
 
-        @Override
-        public Class getType() {
-            return Double.class;
-        }
-    };
+    public static JsonDB fromFile(String file) {
+        assert file != null : "database path cannot be null";
 
-    public static ColumnParser fromType(String type) {
-        if (type.equals("int")) {
-            return INT_PARSER;
-        }
+        file = convertPath(file);
+        int beginIndex = file.lastIndexOf(separator);
+        String dbName = file.substring(beginIndex == -1 ? 0 : beginIndex);
+        File metaFile = new File(file + separator + dbName + ".meta.json");
+        File dataFile = new File(file + separator + dbName + ".json");
 
-        if (type.equals("string")) {
-            return STRING_PARSER;
-        }
+        return new JsonDBImpl(metaFile, dataFile, file + separator + dbName).performAndLoadValidation();
+    }
 
-        if (type.equals("boolean")) {
-            return BOOLEAN_PARSER;
+    private static String convertPath(String file) {
+        if (file.indexOf('/') != -1) {
+            return Joiner.on(separator).join(file.split("/"));
         }
-
-        if (type.equals("decimal")) {
-            return DECIMAL_PARSER;
+        if (file.indexOf('\\') != -1) {
+            return Joiner.on(separator).join(file.split("\\\\"));
         }
-
-        throw new DBParseException("Unsupported column type: " + type);
+        return file;
     }
 }
-
-
@@ -0,0 +1,112 @@
+package edu.css.db;
+
+import java.util.Arrays;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class KeySlotMap {
+    static final int NO_SLOT = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] slots;
+    private int size;
+
+    KeySlotMap() {
+        this.keys = new int[INITIAL_CAPACITY];
+        this.slots = emptySlots(INITIAL_CAPACITY);
+    }
+
+    KeySlotMap(KeySlotMap other) {
+        this.keys = other.keys.clone();
+        this.slots = other.slots.clone();
+        this.size = other.size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int key) {
+        int mask = slots.length - 1;
+        for (int i = hash(key) & mask; slots[i] != NO_SLOT; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return slots[i];
+            }
+        }
+        return NO_SLOT;
+    }
+
+    void put(int key, int slot) {
+        assert slot != NO_SLOT : "slot cannot be negative";
+
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        int mask = slots.length - 1;
+        int i = hash(key) & mask;
+        while (slots[i] != NO_SLOT && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (slots[i] == NO_SLOT) {
+            size++;
+        }
+        keys[i] = key;
+        slots[i] = slot;
+    }
+
+    void remove(int key) {
+        int mask = slots.length - 1;
+        int hole = hash(key) & mask;
+        while (slots[hole] != NO_SLOT && keys[hole] != key) {
+            hole = (hole + 1) & mask;
+        }
+        if (slots[hole] == NO_SLOT) {
+            return;
+        }
+
+        //shift the following entries of the probe chain back so lookups never stop at the hole
+        for (int next = (hole + 1) & mask; slots[next] != NO_SLOT; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                slots[hole] = slots[next];
+                hole = next;
+            }
+        }
+        slots[hole] = NO_SLOT;
+        size--;
+    }
+
+    void clear() {
+        Arrays.fill(slots, NO_SLOT);
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldSlots = slots;
+
+        keys = new int[capacity];
+        slots = emptySlots(capacity);
+        size = 0;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != NO_SLOT) {
+                put(oldKeys[i], oldSlots[i]);
+            }
+        }
+    }
+
+    private static int[] emptySlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, NO_SLOT);
+        return slots;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
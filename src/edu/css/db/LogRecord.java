@@ -0,0 +1,212 @@
+package edu.css.db;
+
+import edu.css.json.JsonReader;
+import edu.css.json.JsonToken;
+import edu.css.json.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class LogRecord {
+    private final List<Operation> operations = newArrayList();
+    //only the last operation on a record is kept, it replaces the earlier one in place
+    private final Map<String, Map<Integer, Integer>> operationIndexes = newHashMap();
+    private final Map<String, Integer> sequences = newLinkedHashMap();
+
+    void put(String entityName, Integer key, Object[] row) {
+        assert row != null : "logged row cannot be null";
+        add(new Operation(entityName, row, key));
+    }
+
+    void delete(String entityName, Integer key) {
+        add(new Operation(entityName, null, key));
+    }
+
+    private void add(Operation operation) {
+        assert operation.getKey() != null : "logged record must have a key";
+
+        Map<Integer, Integer> keyToIndex = operationIndexes.get(operation.getEntityName());
+        if (keyToIndex == null) {
+            keyToIndex = newHashMap();
+            operationIndexes.put(operation.getEntityName(), keyToIndex);
+        }
+
+        Integer index = keyToIndex.get(operation.getKey());
+        if (index == null) {
+            keyToIndex.put(operation.getKey(), operations.size());
+            operations.add(operation);
+        } else {
+            operations.set(index, operation);
+        }
+    }
+
+    //the last operation logged on the record, or null when the record was not touched
+    Operation find(String entityName, Integer key) {
+        Map<Integer, Integer> keyToIndex = operationIndexes.get(entityName);
+        Integer index = keyToIndex == null ? null : keyToIndex.get(key);
+        return index == null ? null : operations.get(index);
+    }
+
+    void sequence(String entityName, Integer value) {
+        sequences.put(entityName, value);
+    }
+
+    boolean isEmpty() {
+        return operations.isEmpty() && sequences.isEmpty();
+    }
+
+    List<Operation> getOperations() {
+        return operations;
+    }
+
+    Map<String, Integer> getSequences() {
+        return sequences;
+    }
+
+    byte[] toLine(Map<String, EntityMeta> entities) {
+        StringWriter line = new StringWriter();
+
+        try (JsonWriter writer = new JsonWriter(line)) {
+            writer.beginObject().name("ops").beginArray();
+            for (Operation operation : operations) {
+                writeOperation(writer, operation, entities.get(operation.getEntityName()));
+            }
+            writer.endArray();
+
+            writer.name("seq").beginObject();
+            for (Map.Entry<String, Integer> nameToSequence : sequences.entrySet()) {
+                writer.name(nameToSequence.getKey()).value(nameToSequence.getValue());
+            }
+            writer.endObject().endObject();
+        } catch (IOException e) {
+            throw new DBParseException("Error writing log record", e);
+        }
+        return (line.toString() + '\n').getBytes(UTF_8);
+    }
+
+    private void writeOperation(JsonWriter writer, Operation operation, EntityMeta meta) {
+        assert meta != null : "metadata for logged entity is missing";
+
+        writer.beginArray();
+        if (operation.isDelete()) {
+            writer.value("delete").value(operation.getEntityName()).value(operation.getKey());
+        } else {
+            writer.value("put").value(operation.getEntityName()).beginArray();
+            for (int i = 0; i < operation.getRow().length; i++) {
+                meta.getColumn(i).getParser().write(writer, operation.getRow()[i]);
+            }
+            writer.endArray();
+        }
+        writer.endArray();
+    }
+
+    static LogRecord fromLine(String line, Map<String, EntityMeta> entities) {
+        LogRecord record = new LogRecord();
+
+        try (JsonReader reader = new JsonReader(new StringReader(line))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String property = reader.nextName();
+                if (property.equals("ops")) {
+                    record.readOperations(reader, entities);
+                } else if (property.equals("seq")) {
+                    record.readSequences(reader);
+                } else {
+                    throw new DBParseException("Unknown property in log record: " + property);
+                }
+            }
+            reader.endObject();
+
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new DBParseException("Malformed log record: " + line);
+            }
+        } catch (IOException e) {
+            throw new DBParseException("Error reading log record", e);
+        }
+        return record;
+    }
+
+    private void readOperations(JsonReader reader, Map<String, EntityMeta> entities) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginArray();
+            String type = reader.nextString();
+            String entityName = reader.nextString();
+            EntityMeta meta = entities.get(entityName);
+            if (meta == null) {
+                throw new DBParseException("Log record for unknown entity: " + entityName);
+            }
+
+            if (type.equals("put")) {
+                Object[] row = readRow(reader, meta);
+                put(entityName, (Integer) row[meta.getKeyIndex()], row);
+            } else if (type.equals("delete")) {
+                delete(entityName, reader.nextInt());
+            } else {
+                throw new DBParseException("Unknown log operation: " + type);
+            }
+            reader.endArray();
+        }
+        reader.endArray();
+    }
+
+    private Object[] readRow(JsonReader reader, EntityMeta meta) {
+        Object[] row = new Object[meta.getOrderedColumns().size()];
+
+        reader.beginArray();
+        for (int i = 0; i < row.length; i++) {
+            row[i] = meta.getColumn(i).getParser().read(reader);
+        }
+        reader.endArray();
+        return row;
+    }
+
+    private void readSequences(JsonReader reader) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String entityName = reader.nextName();
+            sequence(entityName, reader.nextInt());
+        }
+        reader.endObject();
+    }
+
+    static class Operation {
+        private final String entityName;
+        private final Object[] row;
+        private final Integer key;
+
+        Operation(String entityName, Object[] row, Integer key) {
+            this.entityName = entityName;
+            this.row = row;
+            this.key = key;
+        }
+
+        String getEntityName() {
+            return entityName;
+        }
+
+        boolean isDelete() {
+            return row == null;
+        }
+
+        Object[] getRow() {
+            return row;
+        }
+
+        Integer getKey() {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package edu.css.db;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+abstract class NumericColumn extends TableColumn {
+
+    abstract double getDouble(int slot);
+}
@@ -0,0 +1,38 @@
+package edu.css.db;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public enum Operator {
+    EQ,
+    NE,
+    IN,
+    LT,
+    LE,
+    GT,
+    GE;
+
+    boolean isRange() {
+        return this != EQ && this != NE && this != IN;
+    }
+
+    boolean accepts(int comparison) {
+        switch (this) {
+            case EQ:
+                return comparison == 0;
+            case NE:
+                return comparison != 0;
+            case LT:
+                return comparison < 0;
+            case LE:
+                return comparison <= 0;
+            case GT:
+                return comparison > 0;
+            case GE:
+                return comparison >= 0;
+            default:
+                throw new IllegalStateException("Operator does not compare values: " + this);
+        }
+    }
+}
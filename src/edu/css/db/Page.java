@@ -0,0 +1,32 @@
+package edu.css.db;
+
+import java.util.List;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final Integer nextKey;
+
+    public Page(List<T> items, Integer nextKey) {
+        assert items != null : "page items cannot be null";
+
+        this.items = items;
+        this.nextKey = nextKey;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    //key to pass as afterKey for the following page, null on the last page
+    public Integer getNextKey() {
+        return nextKey;
+    }
+
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+}
@@ -0,0 +1,192 @@
+package edu.css.db;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public class Query<T> {
+    static final int NO_LIMIT = -1;
+
+    private final JsonDBImpl db;
+    private final Class<T> clazz;
+    private final List<Condition> conditions = newArrayList();
+    private List<String> selectedColumns = null;
+    private String orderColumn = null;
+    private boolean descending = false;
+    private int offset = 0;
+    private int limit = NO_LIMIT;
+
+    Query(JsonDBImpl db, Class<T> clazz) {
+        assert db != null : "query database cannot be null";
+        assert clazz != null : "entity class cannot be null";
+
+        this.db = db;
+        this.clazz = clazz;
+    }
+
+    private Query(Query<T> other) {
+        this(other.db, other.clazz);
+        this.conditions.addAll(other.conditions);
+        this.selectedColumns = other.selectedColumns;
+        this.orderColumn = other.orderColumn;
+        this.descending = other.descending;
+        this.offset = other.offset;
+        this.limit = other.limit;
+    }
+
+    public Query<T> select(String... columns) {
+        assert columns != null : "selected columns cannot be null";
+
+        this.selectedColumns = Arrays.asList(columns);
+        return this;
+    }
+
+    public Query<T> where(String column, Operator operator, Object value) {
+        assert column != null : "column name cannot be null";
+        assert operator != null : "operator cannot be null";
+
+        if (value == null && operator.isRange()) {
+            throw new DBParseException("Null can only be compared for equality: " + column);
+        }
+        if (operator == Operator.IN && !(value instanceof Collection)) {
+            throw new DBParseException("IN needs a collection of values: " + column);
+        }
+        conditions.add(new Condition(column, operator, value));
+        return this;
+    }
+
+    public Query<T> orderBy(String column) {
+        return orderBy(column, false);
+    }
+
+    public Query<T> orderByDescending(String column) {
+        return orderBy(column, true);
+    }
+
+    private Query<T> orderBy(String column, boolean descending) {
+        assert column != null : "column name cannot be null";
+
+        this.orderColumn = column;
+        this.descending = descending;
+        return this;
+    }
+
+    public Query<T> offset(int offset) {
+        assert offset >= 0 : "offset cannot be negative";
+
+        this.offset = offset;
+        return this;
+    }
+
+    public Query<T> limit(int limit) {
+        assert limit >= 0 : "limit cannot be negative";
+
+        this.limit = limit;
+        return this;
+    }
+
+    public List<T> list() {
+        return db.execute(this);
+    }
+
+    //ordered by the key column, ascending unless ordered otherwise, continuing after afterKey when it is given
+    public Page<T> page(int pageSize, Integer afterKey) {
+        assert pageSize > 0 : "page size must be positive";
+
+        return db.page(this, pageSize, afterKey);
+    }
+
+    public T first() {
+        List<T> found = db.execute(copy().limit(1));
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    //rows of this query without a match are paired with null
+    public <U> List<Pair<T, U>> join(Query<U> other, String column, String otherColumn) {
+        assert other != null : "joined query cannot be null";
+        assert column != null && otherColumn != null : "join column names cannot be null";
+
+        return db.join(this, column, other, otherColumn);
+    }
+
+    public int count() {
+        return db.count(this);
+    }
+
+    public Aggregate aggregate(String column) {
+        assert column != null : "column name cannot be null";
+
+        return db.aggregate(this, column);
+    }
+
+    public Map<Object, Aggregate> groupBy(String groupColumn, String column) {
+        assert groupColumn != null : "group column name cannot be null";
+        assert column != null : "column name cannot be null";
+
+        return db.groupBy(this, groupColumn, column);
+    }
+
+    Query<T> copy() {
+        return new Query<>(this);
+    }
+
+    Class<T> getEntityClass() {
+        return clazz;
+    }
+
+    List<String> getSelectedColumns() {
+        return selectedColumns;
+    }
+
+    List<Condition> getConditions() {
+        return Collections.unmodifiableList(conditions);
+    }
+
+    String getOrderColumn() {
+        return orderColumn;
+    }
+
+    boolean isDescending() {
+        return descending;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    static class Condition {
+        private final String column;
+        private final Operator operator;
+        private final Object value;
+
+        Condition(String column, Operator operator, Object value) {
+            this.column = column;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        String getColumn() {
+            return column;
+        }
+
+        Operator getOperator() {
+            return operator;
+        }
+
+        Object getValue() {
+            return value;
+        }
+    }
+}
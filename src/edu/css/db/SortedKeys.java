@@ -0,0 +1,69 @@
+package edu.css.db;
+
+import java.util.Arrays;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class SortedKeys {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private int size;
+
+    SortedKeys() {
+        this.keys = new int[INITIAL_CAPACITY];
+    }
+
+    SortedKeys(SortedKeys other) {
+        this.keys = other.keys.clone();
+        this.size = other.size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int position) {
+        assert position >= 0 && position < size : "key position out of range";
+        return keys[position];
+    }
+
+    //position of the first key not smaller than the given one
+    int lowerBound(int key) {
+        int position = Arrays.binarySearch(keys, 0, size, key);
+        return position < 0 ? -position - 1 : position;
+    }
+
+    //position of the first key greater than the given one
+    int upperBound(int key) {
+        int position = Arrays.binarySearch(keys, 0, size, key);
+        return position < 0 ? -position - 1 : position + 1;
+    }
+
+    void add(int key) {
+        //keys come from a sequence, so they are nearly always appended at the end
+        int position = size == 0 || keys[size - 1] < key ? size : Arrays.binarySearch(keys, 0, size, key);
+        if (position >= 0 && position < size) {
+            return;
+        }
+        position = position < 0 ? -position - 1 : position;
+
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        keys[position] = key;
+        size++;
+    }
+
+    void remove(int key) {
+        int position = Arrays.binarySearch(keys, 0, size, key);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+        size--;
+    }
+}
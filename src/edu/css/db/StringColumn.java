@@ -0,0 +1,86 @@
+package edu.css.db;
+
+import edu.css.json.JsonReader;
+import edu.css.json.JsonWriter;
+
+import java.util.Arrays;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class StringColumn extends TableColumn {
+    private String[] values;
+
+    StringColumn(int capacity) {
+        this.values = new String[capacity];
+    }
+
+    private StringColumn(StringColumn other) {
+        this.values = other.values.clone();
+    }
+
+    @Override
+    String get(int slot) {
+        return values[slot];
+    }
+
+    @Override
+    void set(int slot, Object value) {
+        assert value == null || value instanceof String : "object value must be of type String";
+        values[slot] = (String) value;
+    }
+
+    @Override
+    boolean matches(int slot, Object value) {
+        return value == null ? values[slot] == null : value.equals(values[slot]);
+    }
+
+    @Override
+    boolean isNull(int slot) {
+        return values[slot] == null;
+    }
+
+    @Override
+    Object normalize(Object value) {
+        return value instanceof String ? value : null;
+    }
+
+    @Override
+    int compareValue(int slot, Object value) {
+        return values[slot].compareTo((String) value);
+    }
+
+    @Override
+    int compareSlots(int first, int second) {
+        if (values[first] == null || values[second] == null) {
+            return Boolean.compare(values[first] != null, values[second] != null);
+        }
+        return values[first].compareTo(values[second]);
+    }
+
+    @Override
+    void read(int slot, JsonReader reader) {
+        values[slot] = reader.nextString();
+    }
+
+    @Override
+    void write(int slot, JsonWriter writer) {
+        writer.value(values[slot]);
+    }
+
+    @Override
+    void move(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    TableColumn copy() {
+        return new StringColumn(this);
+    }
+}
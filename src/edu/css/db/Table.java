@@ -0,0 +1,630 @@
+package edu.css.db;
+
+import edu.css.json.JsonReader;
+import edu.css.json.JsonWriter;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class Table {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final EntityMeta meta;
+    private final TableColumn[] columns;
+    private final int keyIndex;
+    private final IntColumn keys;
+    private final KeySlotMap keySlots;
+    private final SortedKeys sortedKeys;
+    private final BitSet deleted;
+    private final ColumnIndex[] indexes;
+    private int capacity;
+    private int size;
+    private int modifications;
+    //guarded by the database publish lock: a published table is only changed in place while nothing reads it
+    private int readers;
+    private boolean shared;
+
+    Table(EntityMeta meta) {
+        assert meta != null : "table metadata cannot be null";
+
+        this.meta = meta;
+        this.capacity = INITIAL_CAPACITY;
+        this.columns = new TableColumn[meta.getOrderedColumns().size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = meta.getColumns().get(meta.getOrderedColumns().get(i)).getParser().createColumn(capacity);
+        }
+        this.keyIndex = meta.getKeyIndex();
+        this.keys = (IntColumn) columns[keyIndex];
+        this.keySlots = new KeySlotMap();
+        this.sortedKeys = new SortedKeys();
+        this.deleted = new BitSet();
+        this.indexes = new ColumnIndex[columns.length];
+        for (int i = 0; i < indexes.length; i++) {
+            IndexType indexType = meta.getColumns().get(meta.getOrderedColumns().get(i)).getIndexType();
+            if (indexType != null && i != keyIndex) {
+                indexes[i] = new ColumnIndex(indexType);
+            }
+        }
+    }
+
+    Table(Table other) {
+        assert other != null : "cannot copy a null table";
+
+        this.meta = other.meta;
+        this.capacity = other.capacity;
+        this.size = other.size;
+        this.columns = new TableColumn[other.columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = other.columns[i].copy();
+        }
+        this.keyIndex = other.keyIndex;
+        this.keys = (IntColumn) columns[keyIndex];
+        this.keySlots = new KeySlotMap(other.keySlots);
+        this.sortedKeys = new SortedKeys(other.sortedKeys);
+        this.deleted = (BitSet) other.deleted.clone();
+        this.indexes = new ColumnIndex[other.indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            if (other.indexes[i] != null) {
+                indexes[i] = new ColumnIndex(other.indexes[i]);
+            }
+        }
+    }
+
+    EntityMeta getMeta() {
+        return meta;
+    }
+
+    void pin() {
+        readers++;
+    }
+
+    void unpin() {
+        assert readers > 0 : "table was not pinned";
+        readers--;
+    }
+
+    //rows handed out beyond a transaction may still be read after it ends
+    void share() {
+        shared = true;
+    }
+
+    boolean isInUse() {
+        return readers > 0 || shared;
+    }
+
+    void apply(LogRecord record) {
+        for (LogRecord.Operation operation : record.getOperations()) {
+            if (operation.isDelete()) {
+                delete(operation.getKey());
+            } else {
+                upsert(operation.getRow());
+            }
+        }
+    }
+
+    Collection<Object[]> rows() {
+        return new AbstractCollection<Object[]>() {
+            @Override
+            public Iterator<Object[]> iterator() {
+                return new RowIterator();
+            }
+
+            @Override
+            public int size() {
+                return keySlots.size();
+            }
+        };
+    }
+
+    int columnCount() {
+        return columns.length;
+    }
+
+    int columnIndex(String columnName) {
+        int column = meta.getColumnIndex(columnName);
+        if (column == -1) {
+            throw new DBParseException("Unknown column for entity " + meta.getName() + ": " + columnName);
+        }
+        return column;
+    }
+
+    Collection<Object[]> findBy(int column, Object value) {
+        assert column >= 0 && column < columns.length : "column index out of range";
+
+        if (column == keyIndex) {
+            Object[] row = find(value);
+            return row == null ? Collections.<Object[]>emptyList() : Collections.singletonList(row);
+        }
+        if (indexes[column] != null) {
+            return findIndexed(indexes[column], value);
+        }
+        return findByScan(column, value);
+    }
+
+    private Collection<Object[]> findIndexed(ColumnIndex index, Object value) {
+        List<Object[]> found = newArrayList();
+        for (Object key : index.find(value)) {
+            found.add(find(key));
+        }
+        return found;
+    }
+
+    private Collection<Object[]> findByScan(int column, Object value) {
+        List<Object[]> found = newArrayList();
+        for (int slot = deleted.nextClearBit(0); slot < size; slot = deleted.nextClearBit(slot + 1)) {
+            if (columns[column].matches(slot, value)) {
+                found.add(row(slot));
+            }
+        }
+        return found;
+    }
+
+    List<Object[]> select(Query<?> query, int[] projection) {
+        List<Object[]> found = newArrayList();
+        for (int slot : selectSlots(query)) {
+            found.add(projection == null ? row(slot) : row(slot, projection));
+        }
+        return found;
+    }
+
+    int count(Query<?> query) {
+        if (query.getConditions().isEmpty()) {
+            int count = Math.max(0, keySlots.size() - query.getOffset());
+            return query.getLimit() == Query.NO_LIMIT ? count : Math.min(count, query.getLimit());
+        }
+        return selectSlots(query).size();
+    }
+
+    Aggregate aggregate(Query<?> query, String column) {
+        NumericColumn values = numericColumn(column);
+
+        Aggregate aggregate = new Aggregate();
+        for (int slot : selectSlots(query)) {
+            if (!values.isNull(slot)) {
+                aggregate.add(values.getDouble(slot));
+            }
+        }
+        return aggregate;
+    }
+
+    Map<Object, Aggregate> groupBy(Query<?> query, String groupColumn, String column) {
+        TableColumn groups = columns[columnIndex(groupColumn)];
+        NumericColumn values = numericColumn(column);
+
+        Map<Object, Aggregate> groupToAggregate = new LinkedHashMap<>();
+        for (int slot : selectSlots(query)) {
+            Object group = groups.get(slot);
+            Aggregate aggregate = groupToAggregate.get(group);
+            if (aggregate == null) {
+                aggregate = new Aggregate();
+                groupToAggregate.put(group, aggregate);
+            }
+            if (!values.isNull(slot)) {
+                aggregate.add(values.getDouble(slot));
+            }
+        }
+        return groupToAggregate;
+    }
+
+    private NumericColumn numericColumn(String column) {
+        TableColumn values = columns[columnIndex(column)];
+        if (!(values instanceof NumericColumn)) {
+            throw new DBParseException("Column cannot be aggregated, it is not numeric: " + column);
+        }
+        return (NumericColumn) values;
+    }
+
+    private List<Integer> selectSlots(Query<?> query) {
+        List<Query.Condition> conditions = query.getConditions();
+        int[] conditionColumns = new int[conditions.size()];
+        Object[] conditionValues = new Object[conditions.size()];
+        for (int i = 0; i < conditions.size(); i++) {
+            conditionColumns[i] = columnIndex(conditions.get(i).getColumn());
+            conditionValues[i] = conditions.get(i).getOperator() == Operator.IN
+                    ? normalizeAll(conditionColumns[i], (Collection<?>) conditions.get(i).getValue())
+                    : normalize(conditionColumns[i], conditions.get(i).getValue());
+        }
+
+        int orderColumn = query.getOrderColumn() == null ? -1 : columnIndex(query.getOrderColumn());
+        int wanted = query.getLimit() == Query.NO_LIMIT
+                ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, (long) query.getOffset() + query.getLimit());
+        List<Integer> selected = newArrayList();
+        int[] candidates = indexedSlots(conditions, conditionColumns, conditionValues);
+
+        if (orderColumn == keyIndex && candidates == null) {
+            //rows are visited in key order, so nothing has to be sorted and the search can stop at the limit
+            int[] range = keyRange(conditions, conditionColumns, conditionValues);
+            for (int i = 0; i < range[1] - range[0] && selected.size() < wanted; i++) {
+                int slot = keySlots.get(sortedKeys.get(query.isDescending() ? range[1] - 1 - i : range[0] + i));
+                if (matches(slot, conditions, conditionColumns, conditionValues)) {
+                    selected.add(slot);
+                }
+            }
+        } else {
+            //without an order every match is final, so the search can stop at the limit
+            int stopAt = orderColumn == -1 ? wanted : Integer.MAX_VALUE;
+            if (candidates == null) {
+                for (int slot = deleted.nextClearBit(0); slot < size && selected.size() < stopAt; slot = deleted.nextClearBit(slot + 1)) {
+                    if (matches(slot, conditions, conditionColumns, conditionValues)) {
+                        selected.add(slot);
+                    }
+                }
+            } else {
+                for (int i = 0; i < candidates.length && selected.size() < stopAt; i++) {
+                    if (matches(candidates[i], conditions, conditionColumns, conditionValues)) {
+                        selected.add(candidates[i]);
+                    }
+                }
+            }
+            if (orderColumn != -1) {
+                Collections.sort(selected, slotOrder(orderColumn, query.isDescending()));
+            }
+        }
+
+        return selected.subList(Math.min(query.getOffset(), selected.size()), Math.min(wanted, selected.size()));
+    }
+
+    int[] projection(List<String> selectedColumns, int... requiredColumns) {
+        if (selectedColumns == null) {
+            return null;
+        }
+
+        //the key is always loaded, so projected entities can still be updated or deleted
+        BitSet projected = new BitSet();
+        projected.set(keyIndex);
+        for (int column : requiredColumns) {
+            projected.set(column);
+        }
+        for (String column : selectedColumns) {
+            projected.set(columnIndex(column));
+        }
+
+        int[] projection = new int[projected.cardinality()];
+        for (int i = 0, column = projected.nextSetBit(0); column != -1; i++, column = projected.nextSetBit(column + 1)) {
+            projection[i] = column;
+        }
+        return projection;
+    }
+
+    private Object normalize(int column, Object value) {
+        if (value == null) {
+            return null;
+        }
+        Object normalized = columns[column].normalize(value);
+        if (normalized == null) {
+            throw new DBParseException("Wrong value type for column " + meta.getOrderedColumns().get(column) + ": " + value);
+        }
+        return normalized;
+    }
+
+    private Set<Object> normalizeAll(int column, Collection<?> values) {
+        Set<Object> normalized = new HashSet<>();
+        for (Object value : values) {
+            normalized.add(normalize(column, value));
+        }
+        return normalized;
+    }
+
+    private int[] indexedSlots(List<Query.Condition> conditions, int[] conditionColumns, Object[] conditionValues) {
+        for (int i = 0; i < conditions.size(); i++) {
+            Operator operator = conditions.get(i).getOperator();
+            int column = conditionColumns[i];
+            Object value = conditionValues[i];
+
+            if (column == keyIndex && operator == Operator.EQ) {
+                int slot = value == null ? KeySlotMap.NO_SLOT : keySlots.get((Integer) value);
+                return slot == KeySlotMap.NO_SLOT ? new int[0] : new int[]{slot};
+            }
+            if (column == keyIndex && operator == Operator.IN) {
+                Set<Object> keys = new HashSet<>((Set<?>) value);
+                keys.remove(null);
+                return slotsOf(keys);
+            }
+            ColumnIndex index = indexes[column];
+            if (index != null && operator == Operator.EQ) {
+                return slotsOf(index.find(value));
+            }
+            if (index != null && operator == Operator.IN) {
+                Set<Object> keys = new HashSet<>();
+                for (Object inValue : (Set<?>) value) {
+                    keys.addAll(index.find(inValue));
+                }
+                return slotsOf(keys);
+            }
+            if (index != null && operator.isRange() && index.getType() == IndexType.SORTED) {
+                return slotsOf(index.findRange(operator, value));
+            }
+        }
+        return null;
+    }
+
+    //positions in sortedKeys, first inclusive and last exclusive, allowed by the range conditions on the key
+    private int[] keyRange(List<Query.Condition> conditions, int[] conditionColumns, Object[] conditionValues) {
+        int from = 0;
+        int to = sortedKeys.size();
+        for (int i = 0; i < conditions.size(); i++) {
+            //only non-null range conditions narrow the range, matches() still checks every condition
+            if (conditionColumns[i] != keyIndex || !conditions.get(i).getOperator().isRange()
+                    || conditionValues[i] == null) {
+                continue;
+            }
+            int key = (Integer) conditionValues[i];
+            switch (conditions.get(i).getOperator()) {
+                case GT:
+                    from = Math.max(from, sortedKeys.upperBound(key));
+                    break;
+                case GE:
+                    from = Math.max(from, sortedKeys.lowerBound(key));
+                    break;
+                case LT:
+                    to = Math.min(to, sortedKeys.lowerBound(key));
+                    break;
+                case LE:
+                    to = Math.min(to, sortedKeys.upperBound(key));
+                    break;
+            }
+        }
+        return new int[]{from, Math.max(from, to)};
+    }
+
+    private int[] slotsOf(Collection<Object> keys) {
+        int[] slots = new int[keys.size()];
+        int found = 0;
+        for (Object key : keys) {
+            int slot = keySlots.get((Integer) key);
+            if (slot != KeySlotMap.NO_SLOT) {
+                slots[found++] = slot;
+            }
+        }
+        //index entries keep insertion order, scans and index lookups should return rows in the same order
+        slots = Arrays.copyOf(slots, found);
+        Arrays.sort(slots);
+        return slots;
+    }
+
+    private boolean matches(int slot, List<Query.Condition> conditions, int[] conditionColumns, Object[] conditionValues) {
+        for (int i = 0; i < conditions.size(); i++) {
+            Operator operator = conditions.get(i).getOperator();
+            TableColumn column = columns[conditionColumns[i]];
+
+            if (operator == Operator.IN) {
+                if (!((Set<?>) conditionValues[i]).contains(column.get(slot))) {
+                    return false;
+                }
+            } else if (!operator.isRange()) {
+                if (column.matches(slot, conditionValues[i]) != (operator == Operator.EQ)) {
+                    return false;
+                }
+            } else if (column.isNull(slot) || !operator.accepts(column.compareValue(slot, conditionValues[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Comparator<Integer> slotOrder(final int column, final boolean descending) {
+        return new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                int comparison = columns[column].compareSlots(first, second);
+                return descending ? -comparison : comparison;
+            }
+        };
+    }
+
+    Object[] find(Object key) {
+        if (!(key instanceof Integer)) {
+            return null;
+        }
+        int slot = keySlots.get((Integer) key);
+        return slot == KeySlotMap.NO_SLOT ? null : row(slot);
+    }
+
+    void upsert(Object[] row) {
+        assert row != null && row.length == columns.length : "row does not match table columns";
+        assert row[keyIndex] instanceof Integer : "row key must be an Integer";
+
+        int existingSlot = keySlots.get((Integer) row[keyIndex]);
+        removeSlot(existingSlot);
+        modifications++;
+
+        int slot = appendSlot();
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].set(slot, row[i]);
+        }
+        keySlots.put(keys.getInt(slot), slot);
+        if (existingSlot == KeySlotMap.NO_SLOT) {
+            sortedKeys.add(keys.getInt(slot));
+        }
+        index(slot);
+    }
+
+    boolean delete(Object key) {
+        if (!(key instanceof Integer)) {
+            return false;
+        }
+        int slot = keySlots.get((Integer) key);
+        if (slot == KeySlotMap.NO_SLOT) {
+            return false;
+        }
+        removeSlot(slot);
+        sortedKeys.remove((Integer) key);
+        modifications++;
+        return true;
+    }
+
+    private Object[] row(int slot) {
+        Object[] row = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            row[i] = columns[i].get(slot);
+        }
+        return row;
+    }
+
+    private Object[] row(int slot, int[] projection) {
+        Object[] row = new Object[columns.length];
+        for (int column : projection) {
+            row[column] = columns[column].get(slot);
+        }
+        return row;
+    }
+
+    private int appendSlot() {
+        if (size == capacity) {
+            //deleted slots are only reclaimed when the table would otherwise have to grow
+            if (size - keySlots.size() > size / 2) {
+                compact();
+            } else {
+                capacity *= 2;
+                for (TableColumn column : columns) {
+                    column.resize(capacity);
+                }
+            }
+        }
+        return size++;
+    }
+
+    private void removeSlot(int slot) {
+        if (slot == KeySlotMap.NO_SLOT) {
+            return;
+        }
+        unindex(slot);
+        keySlots.remove(keys.getInt(slot));
+        deleted.set(slot);
+    }
+
+    private void compact() {
+        int live = 0;
+        for (int slot = deleted.nextClearBit(0); slot < size; slot = deleted.nextClearBit(slot + 1)) {
+            if (slot != live) {
+                for (TableColumn column : columns) {
+                    column.move(slot, live);
+                }
+                keySlots.put(keys.getInt(live), live);
+            }
+            live++;
+        }
+        deleted.clear();
+        size = live;
+    }
+
+    private void index(int slot) {
+        for (int i = 0; i < indexes.length; i++) {
+            if (indexes[i] != null) {
+                indexes[i].add(columns[i].get(slot), keys.get(slot));
+            }
+        }
+    }
+
+    private void unindex(int slot) {
+        for (int i = 0; i < indexes.length; i++) {
+            if (indexes[i] != null) {
+                indexes[i].remove(columns[i].get(slot), keys.get(slot));
+            }
+        }
+    }
+
+    void read(JsonReader reader) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            int slot = appendSlot();
+            readRow(reader, slot);
+
+            if (keys.isNull(slot)) {
+                throw new DBParseException("Missing key in table " + meta.getName());
+            }
+            if (keySlots.get(keys.getInt(slot)) != KeySlotMap.NO_SLOT) {
+                throw new DBParseException("Duplicate key in table " + meta.getName() + ": " + keys.getInt(slot));
+            }
+            keySlots.put(keys.getInt(slot), slot);
+            sortedKeys.add(keys.getInt(slot));
+            index(slot);
+        }
+        reader.endArray();
+    }
+
+    private void readRow(JsonReader reader, int slot) {
+        int column = 0;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (column == columns.length) {
+                throw new DBParseException("Row has more values than columns: " + meta.getName());
+            }
+            columns[column].read(slot, reader);
+            column++;
+        }
+        reader.endArray();
+
+        for (; column < columns.length; column++) {
+            columns[column].set(slot, null);
+        }
+    }
+
+    void write(JsonWriter writer) {
+        writer.beginArray();
+        for (int slot = deleted.nextClearBit(0); slot < size; slot = deleted.nextClearBit(slot + 1)) {
+            writeRow(writer, slot);
+        }
+        writer.endArray();
+    }
+
+    private void writeRow(JsonWriter writer, int slot) {
+        writer.beginArray();
+        for (TableColumn column : columns) {
+            column.write(slot, writer);
+        }
+        writer.endArray();
+    }
+
+    private class RowIterator implements Iterator<Object[]> {
+        private final int expectedModifications = modifications;
+        private int slot = deleted.nextClearBit(0);
+
+        @Override
+        public boolean hasNext() {
+            checkNotModified();
+            return slot < size;
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object[] row = row(slot);
+            slot = deleted.nextClearBit(slot + 1);
+            return row;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void checkNotModified() {
+            //rows move when the table is compacted, so a modified table cannot be iterated any further
+            if (modifications != expectedModifications) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package edu.css.db;
+
+import edu.css.json.JsonReader;
+import edu.css.json.JsonWriter;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+abstract class TableColumn {
+
+    abstract Object get(int slot);
+
+    abstract void set(int slot, Object value);
+
+    abstract boolean matches(int slot, Object value);
+
+    abstract boolean isNull(int slot);
+
+    //returns the value as stored in this column, or null when the column cannot hold it
+    abstract Object normalize(Object value);
+
+    abstract int compareValue(int slot, Object value);
+
+    abstract int compareSlots(int first, int second);
+
+    abstract void read(int slot, JsonReader reader);
+
+    abstract void write(int slot, JsonWriter writer);
+
+    abstract void move(int from, int to);
+
+    abstract void resize(int capacity);
+
+    abstract TableColumn copy();
+}
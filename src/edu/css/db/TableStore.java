@@ -0,0 +1,333 @@
+package edu.css.db;
+
+import edu.css.json.JsonReader;
+import edu.css.json.JsonWriter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class TableStore {
+    //the log is folded into the segment once it outgrows it, but never before it reaches this size
+    private static final long MIN_CHECKPOINT_LOG_SIZE = 64 * 1024;
+
+    private final EntityMeta meta;
+    private final File segmentFile;
+    private final WriteAheadLog log;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    //guarded by lock
+    private String baseCheckpoint = null;
+    private long baseLength = 0;
+    private String checkpoint = null;
+    //set while nothing was logged on top of the loaded snapshot, the first commit starts a new log for it
+    private String unloggedCheckpoint = null;
+    private long unloggedLength = 0;
+    private volatile FileVersion loadedVersion = null;
+
+    //guarded by the database publish lock: commits queued in the log, in log order, until they are published
+    private final List<PendingCommit> pending = newArrayList();
+    private long generation = 0;
+
+    TableStore(EntityMeta meta, File segmentFile, File logFile, Map<String, EntityMeta> entities) {
+        assert meta != null : "table metadata cannot be null";
+
+        this.meta = meta;
+        this.segmentFile = segmentFile;
+        this.log = new WriteAheadLog(logFile, entities);
+    }
+
+    String getName() {
+        return meta.getName();
+    }
+
+    ReentrantLock getLock() {
+        return lock;
+    }
+
+    WriteAheadLog getLog() {
+        return log;
+    }
+
+    boolean isStale() {
+        return !FileVersion.of(segmentFile).equals(loadedVersion) || log.hasForeignChanges();
+    }
+
+    //true once commits were written on top of the base snapshot, in a segment or in the log
+    boolean hasChanges() {
+        return checkpoint != null || log.hasRecords();
+    }
+
+    void invalidate() {
+        loadedVersion = null;
+    }
+
+    DatabaseState load(Table baseTable, Integer baseSequence, String baseCheckpoint, long baseLength) {
+        assert lock.isHeldByCurrentThread() : "table can only be loaded while holding its lock";
+        assert baseCheckpoint != null : "segments can only be loaded on top of a checkpoint";
+
+        this.baseCheckpoint = baseCheckpoint;
+        this.baseLength = baseLength;
+        loadedVersion = null;
+        log.drain();
+
+        FileVersion currentVersion = FileVersion.of(segmentFile);
+        Table table = baseTable;
+        Integer sequence = baseSequence;
+        String logCheckpoint = baseCheckpoint;
+        long logSnapshotLength = baseLength;
+        checkpoint = null;
+
+        Segment segment = readSegment();
+        if (segment != null && baseCheckpoint.equals(segment.base)) {
+            table = segment.table;
+            sequence = segment.sequence;
+            checkpoint = logCheckpoint = segment.checkpoint;
+            logSnapshotLength = segmentFile.length();
+        }
+
+        DatabaseState loaded = replay(table, sequence, log.open(logCheckpoint, logSnapshotLength));
+        setUnlogged(logCheckpoint, logSnapshotLength);
+        loadedVersion = currentVersion;
+        return loaded;
+    }
+
+    DatabaseState refresh(DatabaseState state) {
+        assert lock.isHeldByCurrentThread() : "table can only be refreshed while holding its lock";
+
+        log.drain();
+        FileVersion currentVersion = FileVersion.of(segmentFile);
+        if (!currentVersion.equals(loadedVersion)) {
+            return reloadSegment(currentVersion);
+        }
+
+        List<LogRecord> records = log.readNew();
+        if (records == null && unloggedCheckpoint != null) {
+            //another instance may have started the log of the loaded snapshot
+            records = log.open(unloggedCheckpoint, unloggedLength);
+            setUnlogged(unloggedCheckpoint, unloggedLength);
+        }
+        if (records == null) {
+            return reloadSegment(currentVersion);
+        }
+        return replay(state.getTable(getName()), state.getSequence(getName()), records);
+    }
+
+    private DatabaseState reloadSegment(FileVersion currentVersion) {
+        Segment segment = readSegment();
+        if (segment == null || !segment.base.equals(baseCheckpoint)) {
+            //the segment no longer matches the loaded base snapshot, only a full reload can sort it out
+            return null;
+        }
+
+        long segmentLength = segmentFile.length();
+        DatabaseState loaded = replay(segment.table, segment.sequence, log.open(segment.checkpoint, segmentLength));
+        setUnlogged(segment.checkpoint, segmentLength);
+        checkpoint = segment.checkpoint;
+        loadedVersion = currentVersion;
+        return loaded;
+    }
+
+    private void setUnlogged(String snapshotCheckpoint, long snapshotLength) {
+        unloggedCheckpoint = log.isAttached() ? null : snapshotCheckpoint;
+        unloggedLength = snapshotLength;
+    }
+
+    private DatabaseState replay(Table table, Integer sequence, List<LogRecord> records) {
+        DatabaseState loaded = new DatabaseState(
+                Collections.singletonMap(getName(), table),
+                sequence == null ? Collections.<String, Integer>emptyMap() : Collections.singletonMap(getName(), sequence));
+        return loaded.replay(records);
+    }
+
+    //NO_TICKET when the log cannot take the record, the changes then have to go into a new segment
+    long commit(LogRecord record) {
+        assert lock.isHeldByCurrentThread() : "changes can only be committed while holding the table lock";
+
+        long ticket = log.enqueue(record);
+        if (ticket == WriteAheadLog.NO_TICKET && unloggedCheckpoint != null) {
+            log.reset(unloggedCheckpoint, unloggedLength);
+            ticket = log.enqueue(record);
+        }
+        unloggedCheckpoint = null;
+        return ticket;
+    }
+
+    boolean isLogFull() {
+        return log.size() > Math.max(MIN_CHECKPOINT_LOG_SIZE, checkpoint == null ? baseLength : segmentFile.length());
+    }
+
+    void addPending(long ticket, LogRecord record) {
+        pending.add(new PendingCommit(ticket, record));
+    }
+
+    List<LogRecord> getPending() {
+        List<LogRecord> records = newArrayList();
+        for (PendingCommit commit : pending) {
+            records.add(commit.record);
+        }
+        return records;
+    }
+
+    boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    LogRecord.Operation findPending(Integer key) {
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            LogRecord.Operation operation = pending.get(i).record.find(getName(), key);
+            if (operation != null) {
+                return operation;
+            }
+        }
+        return null;
+    }
+
+    Integer findPendingSequence() {
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            Integer sequence = pending.get(i).record.getSequences().get(getName());
+            if (sequence != null) {
+                return sequence;
+            }
+        }
+        return null;
+    }
+
+    //removes the durable commits from the head of the queue, a failed commit drops everything queued behind it too
+    List<LogRecord> takeDurable() {
+        List<LogRecord> records = newArrayList();
+        while (!pending.isEmpty() && log.isDurable(pending.get(0).ticket)) {
+            records.add(pending.remove(0).record);
+        }
+        if (!pending.isEmpty() && log.isFailed(pending.get(0).ticket)) {
+            pending.clear();
+            generation++;
+        }
+        return records;
+    }
+
+    //changes once a commit is lost, transactions that could have read it cannot be committed
+    long getGeneration() {
+        return generation;
+    }
+
+    void reset(String baseCheckpoint, long baseLength) {
+        assert lock.isHeldByCurrentThread() : "table can only be reset while holding its lock";
+
+        this.baseCheckpoint = baseCheckpoint;
+        this.baseLength = baseLength;
+        this.checkpoint = null;
+        this.unloggedCheckpoint = null;
+
+        log.drain();
+        try {
+            Files.deleteIfExists(segmentFile.toPath());
+        } catch (IOException e) {
+            throw new DBParseException("Error removing table segment", e);
+        } finally {
+            FileVersion.markWritten(segmentFile);
+        }
+        log.reset(baseCheckpoint, baseLength);
+        loadedVersion = FileVersion.of(segmentFile);
+    }
+
+    void writeSegment(Table table, Integer sequence) {
+        assert lock.isHeldByCurrentThread() : "segment can only be written while holding the table lock";
+        assert baseCheckpoint != null : "segments can only be written on top of a checkpoint";
+
+        String newCheckpoint = UUID.randomUUID().toString();
+        File tempFile = new File(segmentFile.getPath() + ".tmp");
+
+        loadedVersion = null;
+        try {
+            try (FileOutputStream out = new FileOutputStream(tempFile);
+                 JsonWriter writer = new JsonWriter(out)) {
+                writer.beginObject()
+                        .name("base").value(baseCheckpoint)
+                        .name("checkpoint").value(newCheckpoint)
+                        .name("seq").value(sequence)
+                        .name("rows");
+                table.write(writer);
+                writer.endObject();
+                writer.flush();
+                out.getFD().sync();
+            }
+            Files.move(tempFile.toPath(), segmentFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DBParseException("Error saving table " + getName(), e);
+        } finally {
+            FileVersion.markWritten(segmentFile);
+        }
+
+        checkpoint = newCheckpoint;
+        unloggedCheckpoint = null;
+        log.reset(newCheckpoint, segmentFile.length());
+        loadedVersion = FileVersion.of(segmentFile);
+    }
+
+    private Segment readSegment() {
+        if (!segmentFile.exists()) {
+            return null;
+        }
+
+        Segment segment = new Segment();
+        segment.table = new Table(meta);
+        try (JsonReader reader = new JsonReader(new FileInputStream(segmentFile))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String property = reader.nextName();
+                if (property.equals("base")) {
+                    segment.base = reader.nextString();
+                } else if (property.equals("checkpoint")) {
+                    segment.checkpoint = reader.nextString();
+                } else if (property.equals("seq")) {
+                    segment.sequence = (Integer) ColumnParserBuilder.INT_PARSER.read(reader);
+                } else if (property.equals("rows")) {
+                    segment.table.read(reader);
+                } else {
+                    throw new DBParseException("Unknown property in table segment: " + property);
+                }
+            }
+            reader.endObject();
+        } catch (IOException e) {
+            throw new DBParseException("Error loading table " + getName(), e);
+        }
+
+        if (segment.base == null || segment.checkpoint == null) {
+            throw new DBParseException("Table segment is missing its checkpoint: " + segmentFile);
+        }
+        return segment;
+    }
+
+    private static class PendingCommit {
+        private final long ticket;
+        private final LogRecord record;
+
+        PendingCommit(long ticket, LogRecord record) {
+            this.ticket = ticket;
+            this.record = record;
+        }
+    }
+
+    private static class Segment {
+        private String base;
+        private String checkpoint;
+        private Integer sequence;
+        private Table table;
+    }
+}
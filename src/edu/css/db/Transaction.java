@@ -0,0 +1,80 @@
+package edu.css.db;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class Transaction {
+    private final DatabaseState snapshot;
+    private final Map<String, Table> changedTables = new HashMap<>();
+    private final Map<String, Integer> changedSequences = new HashMap<>();
+    private final Map<String, LogRecord> changes = new LinkedHashMap<>();
+    private final List<TableStore> lockedStores = newArrayList();
+    private final Map<TableStore, Long> generations = new HashMap<>();
+    //tables read from the snapshot before the transaction started writing them
+    private final Set<String> readTables = new HashSet<>();
+    private boolean aborted = false;
+
+    Transaction(DatabaseState snapshot) {
+        assert snapshot != null : "transaction snapshot cannot be null";
+        this.snapshot = snapshot;
+    }
+
+    DatabaseState getSnapshot() {
+        return snapshot;
+    }
+
+    Map<String, Table> getChangedTables() {
+        return changedTables;
+    }
+
+    Map<String, Integer> getChangedSequences() {
+        return changedSequences;
+    }
+
+    LogRecord getChanges(String entityName) {
+        LogRecord record = changes.get(entityName);
+        if (record == null) {
+            record = new LogRecord();
+            changes.put(entityName, record);
+        }
+        return record;
+    }
+
+    boolean hasChanges(String entityName) {
+        LogRecord record = changes.get(entityName);
+        return record != null && !record.isEmpty();
+    }
+
+    List<TableStore> getLockedStores() {
+        return lockedStores;
+    }
+
+    Map<TableStore, Long> getGenerations() {
+        return generations;
+    }
+
+    Set<String> getReadTables() {
+        return readTables;
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+
+    void abort() {
+        changedTables.clear();
+        changedSequences.clear();
+        changes.clear();
+        aborted = true;
+    }
+}
@@ -0,0 +1,377 @@
+package edu.css.db;
+
+import edu.css.json.JsonReader;
+import edu.css.json.JsonWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class WriteAheadLog {
+    static final long NO_TICKET = -1;
+
+    private final File file;
+    private final Map<String, EntityMeta> entities;
+    //only the instance holding it appends to the log or replaces it, in this process or in any other
+    private final FileMutex writer;
+
+    //the log only applies to the snapshot named in its header
+    private boolean attached = false;
+    //everything before readOffset has been replayed or was written by this log
+    private long readOffset = 0;
+    private long writeOffset = 0;
+    private long headerLength = 0;
+    private FileVersion knownVersion = null;
+
+    //commit pipeline: records are queued by committers and written by whichever of them flushes first
+    private final List<byte[]> queue = newArrayList();
+    private long queuedBytes = 0;
+    private long flushingBytes = 0;
+    private long queuedTicket = 0;
+    private long durableTicket = 0;
+    private long failedTicket = 0;
+    private Exception failure = null;
+    private boolean flushing = false;
+
+    WriteAheadLog(File file, Map<String, EntityMeta> entities) {
+        assert file != null : "log file cannot be null";
+        assert entities != null : "entity metadata cannot be null";
+
+        this.file = file;
+        this.entities = entities;
+        this.writer = FileMutex.of(new File(file.getPath() + ".lock"));
+    }
+
+    boolean acquireWriter(long timeoutMillis) {
+        return writer.acquire(this, timeoutMillis);
+    }
+
+    void releaseWriter() {
+        writer.release(this);
+    }
+
+    synchronized boolean isAttached() {
+        return attached;
+    }
+
+    synchronized boolean hasRecords() {
+        return attached && writeOffset > headerLength;
+    }
+
+    synchronized boolean isDurable(long ticket) {
+        return ticket <= durableTicket;
+    }
+
+    synchronized boolean isFailed(long ticket) {
+        return ticket > durableTicket && ticket <= failedTicket;
+    }
+
+    synchronized long size() {
+        return writeOffset + flushingBytes + queuedBytes;
+    }
+
+    synchronized boolean hasForeignChanges() {
+        if (flushing || !queue.isEmpty()) {
+            //our own flush changes the file, other instances are checked once it is done
+            return false;
+        }
+        return !FileVersion.of(file).equals(knownVersion);
+    }
+
+    synchronized List<LogRecord> open(String checkpoint, long snapshotLength) {
+        assert !flushing && queue.isEmpty() : "log must be drained before it is opened";
+
+        attached = false;
+        readOffset = writeOffset = 0;
+        knownVersion = FileVersion.of(file);
+
+        if (checkpoint == null || !file.exists()) {
+            return Collections.emptyList();
+        }
+
+        byte[] content = readFrom(0);
+        int headerEnd = nextLine(content, 0);
+        if (headerEnd == -1 || !headerMatches(new String(content, 0, headerEnd, UTF_8), checkpoint, snapshotLength)) {
+            return Collections.emptyList();
+        }
+
+        attached = true;
+        readOffset = headerLength = headerEnd + 1;
+        List<LogRecord> records = readRecords(content, headerEnd + 1);
+        writeOffset = readOffset;
+        return records;
+    }
+
+    synchronized List<LogRecord> readNew() {
+        assert !flushing && queue.isEmpty() : "log must be drained before reading new records";
+
+        if (!attached || file.length() < writeOffset) {
+            return null;
+        }
+        knownVersion = FileVersion.of(file);
+        List<LogRecord> records = readRecords(readFrom(readOffset), 0);
+        writeOffset = Math.max(writeOffset, readOffset);
+        return records;
+    }
+
+    synchronized long enqueue(LogRecord record) {
+        assert record != null : "cannot append a null record";
+
+        if (!attached) {
+            return NO_TICKET;
+        }
+        byte[] line = record.toLine(entities);
+        queue.add(line);
+        queuedBytes += line.length;
+        return ++queuedTicket;
+    }
+
+    void awaitDurable(long ticket) {
+        List<byte[]> batch;
+        long batchTicket;
+
+        synchronized (this) {
+            while (true) {
+                if (ticket <= durableTicket) {
+                    return;
+                }
+                if (ticket <= failedTicket) {
+                    throw new DBParseException("Error writing to log", failure);
+                }
+                if (!flushing) {
+                    break;
+                }
+                waitForFlush();
+            }
+
+            flushing = true;
+            batch = newArrayList(queue);
+            batchTicket = queuedTicket;
+            flushingBytes = queuedBytes;
+            queue.clear();
+            queuedBytes = 0;
+        }
+
+        byte[] content = concat(batch);
+        long batchStart = -1;
+        Exception batchFailure = null;
+        try {
+            batchStart = write(content);
+        } catch (IOException | RuntimeException e) {
+            batchFailure = e;
+        }
+        FileVersion.markWritten(file);
+
+        synchronized (this) {
+            flushing = false;
+            flushingBytes = 0;
+            if (batchFailure == null) {
+                durableTicket = batchTicket;
+                //records of other instances ahead of the batch are picked up by the next readNew
+                boolean upToDate = batchStart == writeOffset && readOffset == writeOffset;
+                writeOffset = batchStart + content.length;
+                if (upToDate) {
+                    readOffset = writeOffset;
+                }
+                knownVersion = upToDate ? FileVersion.of(file) : null;
+            } else {
+                //nothing queued behind a failed batch can be trusted either
+                attached = false;
+                failure = batchFailure;
+                failedTicket = queuedTicket;
+                queue.clear();
+                queuedBytes = 0;
+            }
+            notifyAll();
+        }
+        awaitDurable(ticket);
+    }
+
+    void drain() {
+        long lastTicket;
+        synchronized (this) {
+            lastTicket = queuedTicket;
+        }
+        try {
+            awaitDurable(lastTicket);
+        } catch (DBParseException e) {
+            //reported to the committers whose records were lost, draining only has to wait for the flush
+        }
+    }
+
+    private void waitForFlush() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DBParseException("Interrupted while waiting for the log", e);
+        }
+    }
+
+    private static byte[] concat(List<byte[]> lines) {
+        int length = 0;
+        for (byte[] line : lines) {
+            length += line.length;
+        }
+        byte[] content = new byte[length];
+        int position = 0;
+        for (byte[] line : lines) {
+            System.arraycopy(line, 0, content, position, line.length);
+            position += line.length;
+        }
+        return content;
+    }
+
+    private long write(byte[] content) throws IOException {
+        assert writer.isHeldBy(this) : "log can only be appended while holding its writer lock";
+
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            long fileLength = out.length();
+            if (fileLength < writeOffset) {
+                throw new IOException("Log file was truncated externally: " + file);
+            }
+
+            //drops a record torn by an earlier crash, other instances only append while holding the writer lock
+            long end = completeRecordsEnd(out, fileLength);
+            if (end < fileLength) {
+                out.setLength(end);
+            }
+
+            out.seek(end);
+            out.write(content);
+            out.getFD().sync();
+            return end;
+        }
+    }
+
+    private long completeRecordsEnd(RandomAccessFile out, long fileLength) throws IOException {
+        if (fileLength == writeOffset) {
+            return fileLength;
+        }
+        byte[] tail = new byte[(int) (fileLength - writeOffset)];
+        out.seek(writeOffset);
+        out.readFully(tail);
+
+        for (int i = tail.length - 1; i >= 0; i--) {
+            if (tail[i] == '\n') {
+                return writeOffset + i + 1;
+            }
+        }
+        return writeOffset;
+    }
+
+    synchronized void reset(String checkpoint, long snapshotLength) {
+        assert checkpoint != null : "checkpoint id cannot be null";
+        assert !flushing && queue.isEmpty() : "log must be drained before it is reset";
+        assert writer.isHeldBy(this) : "log can only be reset while holding its writer lock";
+
+        byte[] header = headerLine(checkpoint, snapshotLength);
+        File tempFile = new File(file.getPath() + ".tmp");
+
+        attached = false;
+        try {
+            try (FileOutputStream out = new FileOutputStream(tempFile)) {
+                out.write(header);
+                out.getFD().sync();
+            }
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DBParseException("Error resetting log", e);
+        } finally {
+            FileVersion.markWritten(file);
+        }
+
+        attached = true;
+        readOffset = writeOffset = headerLength = header.length;
+        durableTicket = failedTicket = queuedTicket;
+        failure = null;
+        knownVersion = FileVersion.of(file);
+    }
+
+    private byte[] readFrom(long offset) {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            long available = in.length() - offset;
+            if (available > Integer.MAX_VALUE) {
+                throw new DBParseException("Log file is too large: " + file);
+            }
+            byte[] content = new byte[(int) Math.max(available, 0)];
+            in.seek(offset);
+            in.readFully(content);
+            return content;
+        } catch (IOException e) {
+            throw new DBParseException("Error reading log", e);
+        }
+    }
+
+    private List<LogRecord> readRecords(byte[] content, int start) {
+        List<LogRecord> records = newArrayList();
+
+        for (int lineEnd = nextLine(content, start); lineEnd != -1; lineEnd = nextLine(content, start)) {
+            records.add(LogRecord.fromLine(new String(content, start, lineEnd - start, UTF_8), entities));
+            readOffset += lineEnd + 1 - start;
+            start = lineEnd + 1;
+        }
+        return records;
+    }
+
+    private static int nextLine(byte[] content, int start) {
+        for (int i = start; i < content.length; i++) {
+            if (content[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean headerMatches(String header, String checkpoint, long snapshotLength) {
+        try (JsonReader reader = new JsonReader(new StringReader(header))) {
+            String headerCheckpoint = null;
+            long headerLength = -1;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String property = reader.nextName();
+                if (property.equals("checkpoint")) {
+                    headerCheckpoint = reader.nextString();
+                } else if (property.equals("length")) {
+                    headerLength = reader.nextLong();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return checkpoint.equals(headerCheckpoint) && headerLength == snapshotLength;
+        } catch (IOException e) {
+            throw new DBParseException("Error reading log header", e);
+        }
+    }
+
+    private static byte[] headerLine(String checkpoint, long snapshotLength) {
+        StringWriter header = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(header)) {
+            writer.beginObject()
+                    .name("checkpoint").value(checkpoint)
+                    .name("length").value(snapshotLength)
+                    .endObject();
+        } catch (IOException e) {
+            throw new DBParseException("Error writing log header", e);
+        }
+        return (header.toString() + '\n').getBytes(UTF_8);
+    }
+}
@@ -4,6 +4,7 @@ import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
+import edu.css.db.Pair;
 import edu.css.model.Exam;
 import edu.css.model.Student;
 import edu.css.operations.AdmissionHelper;
@@ -11,7 +12,9 @@ import edu.css.operations.ExamDAO;
 
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created with IntelliJ IDEA.
@@ -27,6 +30,7 @@ public class ReportGenerator {
     private final int Const = 50;
 
     private ExamDAO examDAO;
+    private List<Pair<Student, Exam>> results;
 
     public ReportGenerator(List<Student> studentList, ExamDAO examDAO, String outputFileName) {
         assert studentList != null : "studentList should not be null";
@@ -37,6 +41,13 @@ public class ReportGenerator {
         this.outputFileName = getOutputFileName(outputFileName);
     }
 
+    public ReportGenerator(List<Pair<Student, Exam>> results, String outputFileName) {
+        assert results != null : "results should not be null";
+        assert outputFileName != null && outputFileName.length() > 0 : "invalid outputFileName";
+        this.results = results;
+        this.outputFileName = getOutputFileName(outputFileName);
+    }
+
     private String getOutputFileName(String outputFileName) {
         if (outputFileName.endsWith(".pdf")) {
             return outputFileName;
@@ -95,10 +106,23 @@ public class ReportGenerator {
         return table;
     }
 
+    private List<Pair<Student, Exam>> getResults() {
+        if (results == null) {
+            assert studentList != null : "Assertion Fail, studentList cannot be null";
+            Map<Integer, Exam> exams = examDAO.getExamsForStudents(studentList);
+            results = new ArrayList<>();
+            for (Student student : studentList) {
+                results.add(new Pair<>(student, exams.get(student.getId())));
+            }
+        }
+        return results;
+    }
+
     private void addTableData(PdfPTable table) {
-        assert studentList != null : "Assertion Fail, studentList cannot be null";
-        for (Student student : studentList) {
-            Exam exam = examDAO.getExamForStudent(student);
+        List<Pair<Student, Exam>> results = getResults();
+        for (Pair<Student, Exam> result : results) {
+            Student student = result.getLeft();
+            Exam exam = result.getRight();
 
             assert exam != null : "Assertion Fail, exam for student cannot be null";
             assert student.getAverage() <= 10 : "Assertion Fail, student average cannot be more than 10";
@@ -115,7 +139,7 @@ public class ReportGenerator {
             table.addCell(getCellValue(AdmissionHelper.passed(student, exam)));
         }
 
-        assert table.getRows().size() == studentList.size() + 1 : "table nr of rows: " + table.getRows().size() + " <> " + studentList.size() + 1; //+1 for header
+        assert table.getRows().size() == results.size() + 1 : "table nr of rows: " + table.getRows().size() + " <> " + results.size() + 1; //+1 for header
     }
 
     private String getCellValue(Object value) {
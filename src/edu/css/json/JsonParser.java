@@ -1,15 +1,12 @@
 package edu.css.json;
 
-import com.google.common.base.Joiner;
-
+import java.io.Reader;
+import java.io.StringWriter;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newLinkedHashMap;
-import static edu.css.json.JsonParser.ObjectValue;
 import static java.util.Arrays.asList;
 
 /**
@@ -18,37 +15,85 @@ import static java.util.Arrays.asList;
  * Time: 3:11 PM
  */
 public class JsonParser {
-    private List<Builder> builderChain = newArrayList();
-    private ChainBuilder chainBuilder = null;
-
-    public JsonParser() {
-        builderChain.add(new NullBuilder());
-        builderChain.add(new ObjectBuilder());
-        builderChain.add(new ArrayBuilder());
-        builderChain.add(new DoubleBuilder());
-        builderChain.add(new IntBuilder());
-        builderChain.add(new StringBuilder());
-        builderChain.add(new BooleanBuilder());
-
-        chainBuilder = new ChainBuilder(builderChain);
-    }
 
     public <T extends JsonValue> T parse(String input) {
         assert input != null : "input content cannot be null";
         return parseImpl(input);
     }
 
+    //the caller names the value type it expects, a wrong guess fails at its own assignment
+    @SuppressWarnings("unchecked")
     private <T extends JsonValue> T parseImpl(String input) {
-        return (T) chainParse(input);
+        return (T) new CursorParser(input.toCharArray()).parseDocument();
     }
 
-    private JsonValue chainParse(String input) {
-        if (input.trim().isEmpty()) {
-            throw new JsonParseException("Unexpected end of file");
+    public <T extends JsonValue> T parse(Reader input) {
+        assert input != null : "input reader cannot be null";
+        JsonReader reader = new JsonReader(input);
+        JsonValue value = readValue(reader);
+
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new JsonParseException("Unexpected content after end of document");
+        }
+        //same contract as parse(String), the caller names the value type it expects
+        @SuppressWarnings("unchecked")
+        T document = (T) value;
+        return document;
+    }
+
+    public JsonValue readValue(JsonReader reader) {
+        assert reader != null : "json reader cannot be null";
+
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                return readObject(reader);
+            case BEGIN_ARRAY:
+                return readArray(reader);
+            case STRING:
+                return new StringValue(reader.nextString());
+            case INT:
+                return new IntValue(reader.nextInt());
+            case DOUBLE:
+                return new DoubleValue(reader.nextDouble());
+            case BOOLEAN:
+                return new BooleanValue(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return new NullValue();
+            default:
+                throw new JsonParseException("Unexpected token: " + reader.peek());
         }
-        return chainBuilder.build(input.trim()).value;
     }
 
+    private ObjectValue readObject(JsonReader reader) {
+        ObjectValue value = new ObjectValue();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String propertyName = reader.nextName();
+            value.properties().put(propertyName, readValue(reader));
+        }
+        reader.endObject();
+        return value;
+    }
+
+    private ArrayValue readArray(JsonReader reader) {
+        ArrayValue value = new ArrayValue();
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            value.properties().add(readValue(reader));
+        }
+        reader.endArray();
+        return value;
+    }
+
+
+    private static String writeToString(JsonValue value) {
+        StringWriter stringWriter = new StringWriter();
+        new JsonWriter(stringWriter).value(value);
+        return stringWriter.toString();
+    }
 
     public static abstract class JsonValue {
         @Override
@@ -99,7 +144,7 @@ public class JsonParser {
             if (value == null) {
                 return new NullValue().toString();
             }
-            return String.format("\"%s\"", value);
+            return writeToString(this);
         }
     }
 
@@ -165,6 +210,8 @@ public class JsonParser {
             return properties;
         }
 
+        //the caller names the value type it expects, a wrong guess fails at its own assignment
+        @SuppressWarnings("unchecked")
         public <T extends JsonValue> T property(String key) {
             assert key != null : "property name cannot be null";
             return (T) this.properties.get(key);
@@ -182,12 +229,7 @@ public class JsonParser {
 
         @Override
         public String toString() {
-            List<String> formatted = newArrayList();
-
-            for (Map.Entry<String, JsonValue> nameToValue : properties.entrySet()) {
-                formatted.add(String.format("\"%s\":%s", nameToValue.getKey(), nameToValue.getValue().toString()));
-            }
-            return String.format("{%s}", Joiner.on(',').join(formatted));
+            return writeToString(this);
         }
     }
 
@@ -208,6 +250,8 @@ public class JsonParser {
             return properties;
         }
 
+        //the caller names the value type it expects, a wrong guess fails at its own assignment
+        @SuppressWarnings("unchecked")
         public <T extends JsonValue> T get(int index) {
             return (T) properties().get(index);
         }
@@ -218,245 +262,271 @@ public class JsonParser {
 
         @Override
         public String toString() {
-            List<String> formatted = newArrayList();
-
-            for (JsonValue value : properties) {
-                formatted.add(value.toString());
-            }
-            return String.format("[%s]", Joiner.on(',').join(formatted));
+            return writeToString(this);
         }
     }
 }
 
-class ChainBuilder {
-    private List<Builder> builderChain = newArrayList();
+class CursorParser {
+    private final char[] buffer;
+    private int position = 0;
 
-    ChainBuilder(List<Builder> builderChain) {
-        assert builderChain != null : "builder list cannot be null";
-        this.builderChain = builderChain;
+    CursorParser(char[] buffer) {
+        assert buffer != null : "input buffer cannot be null";
+        this.buffer = buffer;
     }
 
-    public BuildResult build(String input) {
-        assert input != null : "Input cannot be null";
+    JsonParser.JsonValue parseDocument() {
+        JsonParser.JsonValue value = parseValue();
+        skipWhitespace();
 
-        for (Builder builder : builderChain) {
-            if (builder.matches(input)) {
-                return builder.build(input, this);
-            }
+        if (position != buffer.length) {
+            throw new JsonParseException("Unexpected content after end of document at " + position);
         }
-        throw new JsonParseException("Cannot find property type");
+        return value;
     }
-}
-
-interface Builder {
-    boolean matches(String input);
 
-    BuildResult build(String input, ChainBuilder chainBuilder);
-}
-
-class ObjectBuilder implements Builder {
-
-    @Override
-    public boolean matches(String input) {
-        return input.charAt(0) == '{';
-    }
+    private JsonParser.JsonValue parseValue() {
+        skipWhitespace();
+        if (position == buffer.length) {
+            throw new JsonParseException("Unexpected end of file");
+        }
 
-    @Override
-    public BuildResult build(String input, ChainBuilder chainBuilder) {
-        assert matches(input) : "Cannot build value from invalid input";
+        char first = buffer[position];
+        switch (first) {
+            case '{':
+                return parseObject();
+            case '[':
+                return parseArray();
+            case '"':
+                return new JsonParser.StringValue(parseString());
+            case 't':
+                consumeLiteral("true");
+                return new JsonParser.BooleanValue(true);
+            case 'f':
+                consumeLiteral("false");
+                return new JsonParser.BooleanValue(false);
+            case 'n':
+                consumeLiteral("null");
+                return new JsonParser.NullValue();
+            default:
+                if (first == '-' || isDigit(first)) {
+                    return parseNumber();
+                }
+                throw new JsonParseException("Cannot find property type at " + position);
+        }
+    }
+
+    private JsonParser.ObjectValue parseObject() {
+        JsonParser.ObjectValue value = new JsonParser.ObjectValue();
+        position++;
+
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return value;
+        }
 
-        input = input.substring(1).trim();
-        ObjectValue value = new ObjectValue();
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw new JsonParseException("Invalid object format at " + position);
+            }
+            String propertyName = parseString();
 
-        while (input.length() > 0 && input.charAt(0) != '}') {
-            if (input.charAt(0) == ',') {
-                input = input.substring(1).trim();
-            } else {
-                input = parseProperty(input, value, chainBuilder);
+            skipWhitespace();
+            if (peek() != ':') {
+                throw new JsonParseException("Invalid property format at " + position);
+            }
+            position++;
+            value.properties().put(propertyName, parseValue());
+
+            skipWhitespace();
+            char next = peek();
+            position++;
+            if (next == '}') {
+                return value;
+            }
+            if (next != ',') {
+                throw new JsonParseException("Invalid object format at " + (position - 1));
             }
         }
-
-        return new BuildResult(input.substring(1).trim(), value);
     }
 
-    private String parseProperty(String input, ObjectValue value, ChainBuilder chainBuilder) {
-        String propertyName = parseProperty(input);
-        input = input.substring(propertyName.length() + 2).trim();
+    private JsonParser.ArrayValue parseArray() {
+        JsonParser.ArrayValue value = new JsonParser.ArrayValue();
+        position++;
 
-        if (input.charAt(0) != ':') {
-            throw new JsonParseException("Invalid property format");
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return value;
         }
-        BuildResult propertyValue = chainBuilder.build(input.substring(1).trim());
-        value.properties().put(propertyName, propertyValue.value);
-        return propertyValue.remaining;
-    }
 
-    private String parseProperty(String input) {
-        Pattern pattern = Pattern.compile("^(\"[^\"]+\")");
-        Matcher matcher = pattern.matcher(input);
-        if (!matcher.find()) {
-            throw new JsonParseException("Invalid object format");
+        while (true) {
+            value.properties().add(parseValue());
+
+            skipWhitespace();
+            char next = peek();
+            position++;
+            if (next == ']') {
+                return value;
+            }
+            if (next != ',') {
+                throw new JsonParseException("Invalid array format at " + (position - 1));
+            }
         }
-        String encodedProperty = matcher.group(1);
-        return encodedProperty.substring(1, encodedProperty.length() - 1);
     }
-}
 
-class ArrayBuilder implements Builder {
+    private String parseString() {
+        assert buffer[position] == '"' : "string must start with a quote";
 
-    @Override
-    public boolean matches(String input) {
-        return input.charAt(0) == '[';
+        int start = ++position;
+        while (position < buffer.length) {
+            char c = buffer[position];
+            if (c == '"') {
+                return new String(buffer, start, position++ - start);
+            }
+            if (c == '\\') {
+                return parseEscapedString(start);
+            }
+            position++;
+        }
+        throw new JsonParseException("Unterminated string starting at " + (start - 1));
     }
 
-    @Override
-    public BuildResult build(String input, ChainBuilder chainBuilder) {
-        assert matches(input) : "Cannot build value from invalid input";
+    private String parseEscapedString(int start) {
+        StringBuilder value = new StringBuilder(position - start + 16);
+        value.append(buffer, start, position - start);
 
-        input = input.substring(1).trim();
-        JsonParser.ArrayValue value = new JsonParser.ArrayValue();
-
-        while (input.length() > 0 && input.charAt(0) != ']') {
-            if (input.charAt(0) == ',') {
-                input = input.substring(1).trim();
+        while (position < buffer.length) {
+            char c = buffer[position++];
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c == '\\') {
+                value.append(parseEscape());
             } else {
-                input = parseObject(input, value, chainBuilder);
+                value.append(c);
             }
         }
-
-        return new BuildResult(input.substring(1).trim(), value);
-    }
-
-    private String parseObject(String input, JsonParser.ArrayValue value, ChainBuilder chainBuilder) {
-        BuildResult result = chainBuilder.build(input);
-        value.properties().add(result.value);
-        return result.remaining;
-    }
-}
-
-class IntBuilder implements Builder {
-
-    @Override
-    public boolean matches(String input) {
-        Pattern pattern = Pattern.compile("^(-?\\d+\\b)");
-        Matcher matcher = pattern.matcher(input);
-        return matcher.find();
-    }
-
-    @Override
-    public BuildResult build(String input, ChainBuilder chainBuilder) {
-        Pattern pattern = Pattern.compile("^(-?\\d+\\b)");
-        Matcher matcher = pattern.matcher(input);
-
-        boolean elementFound = matcher.find();
-        assert elementFound : "Cannot build value from invalid input";
-
-        String encodedNumber = matcher.group(1);
-        return new BuildResult(input.substring(encodedNumber.length()).trim(),
-                new JsonParser.IntValue(Integer.parseInt(encodedNumber)));
-    }
-}
-
-class StringBuilder implements Builder {
-
-    @Override
-    public boolean matches(String input) {
-        Pattern pattern = Pattern.compile("^(\"[^\"]*\")");
-        Matcher matcher = pattern.matcher(input);
-        return matcher.find();
+        throw new JsonParseException("Unterminated string starting at " + (start - 1));
+    }
+
+    private char parseEscape() {
+        char escaped = peek();
+        position++;
+
+        switch (escaped) {
+            case '"':
+            case '\\':
+            case '/':
+                return escaped;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                return parseUnicodeEscape();
+            default:
+                throw new JsonParseException("Invalid escape sequence at " + (position - 1));
+        }
+    }
+
+    private char parseUnicodeEscape() {
+        if (position + 4 > buffer.length) {
+            throw new JsonParseException("Unexpected end of file");
+        }
+        int code = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(buffer[position++], 16);
+            if (digit == -1) {
+                throw new JsonParseException("Invalid unicode escape at " + (position - 1));
+            }
+            code = (code << 4) | digit;
+        }
+        return (char) code;
     }
 
-    @Override
-    public BuildResult build(String input, ChainBuilder chainBuilder) {
-        Pattern pattern = Pattern.compile("^(\"[^\"]*\")");
-        Matcher matcher = pattern.matcher(input);
-
-        boolean elementFound = matcher.find();
-        assert elementFound : "Cannot build value from invalid input";
+    private JsonParser.JsonValue parseNumber() {
+        int start = position;
+        boolean negative = buffer[position] == '-';
+        if (negative) {
+            position++;
+        }
 
-        String encodedString = matcher.group(1);
-        return new BuildResult(input.substring(encodedString.length()).trim(),
-                new JsonParser.StringValue(encodedString.substring(1, encodedString.length() - 1)));
-    }
-}
+        long integral = 0;
+        int digits = 0;
+        while (position < buffer.length && isDigit(buffer[position])) {
+            integral = integral * 10 + (buffer[position++] - '0');
+            digits++;
+        }
+        if (digits == 0) {
+            throw new JsonParseException("Invalid number format at " + start);
+        }
 
-class BooleanBuilder implements Builder {
+        if (position < buffer.length && isDecimalPart(buffer[position])) {
+            return parseDouble(start);
+        }
+        if (digits > 10) {
+            throw new JsonParseException("Integer value out of range at " + start);
+        }
 
-    @Override
-    public boolean matches(String input) {
-        Pattern pattern = Pattern.compile("^((true)|(false))");
-        Matcher matcher = pattern.matcher(input);
-        return matcher.find();
+        long value = negative ? -integral : integral;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new JsonParseException("Integer value out of range at " + start);
+        }
+        return new JsonParser.IntValue((int) value);
     }
 
-    @Override
-    public BuildResult build(String input, ChainBuilder chainBuilder) {
-        Pattern pattern = Pattern.compile("^((true)|(false))");
-        Matcher matcher = pattern.matcher(input);
-
-        boolean elementFound = matcher.find();
-        assert elementFound : "Cannot build value from invalid input";
-
-        String encodedBoolean = matcher.group(1);
-        return new BuildResult(input.substring(encodedBoolean.length()).trim(),
-                new JsonParser.BooleanValue(Boolean.valueOf(encodedBoolean)));
+    private JsonParser.DoubleValue parseDouble(int start) {
+        while (position < buffer.length && (isDigit(buffer[position]) || isDecimalPart(buffer[position])
+                || buffer[position] == '+' || buffer[position] == '-')) {
+            position++;
+        }
+        try {
+            return new JsonParser.DoubleValue(Double.valueOf(new String(buffer, start, position - start)));
+        } catch (NumberFormatException e) {
+            throw new JsonParseException("Invalid number format at " + start, e);
+        }
     }
-}
 
-class DoubleBuilder implements Builder {
-
-    @Override
-    public boolean matches(String input) {
-        Pattern pattern = Pattern.compile("^(-?\\d+\\.\\d+)");
-        Matcher matcher = pattern.matcher(input);
-        return matcher.find();
+    private void consumeLiteral(String literal) {
+        if (position + literal.length() > buffer.length) {
+            throw new JsonParseException("Unexpected end of file");
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (buffer[position + i] != literal.charAt(i)) {
+                throw new JsonParseException("Cannot find property type at " + position);
+            }
+        }
+        position += literal.length();
     }
 
-    @Override
-    public BuildResult build(String input, ChainBuilder chainBuilder) {
-        Pattern pattern = Pattern.compile("^(-?\\d+\\.\\d+)");
-        Matcher matcher = pattern.matcher(input);
-
-        boolean elementFound = matcher.find();
-        assert elementFound : "Cannot build value from invalid input";
-
-        String encodedBoolean = matcher.group(1);
-        return new BuildResult(input.substring(encodedBoolean.length()).trim(),
-                new JsonParser.DoubleValue(Double.valueOf(encodedBoolean)));
+    private char peek() {
+        if (position >= buffer.length) {
+            throw new JsonParseException("Unexpected end of file");
+        }
+        return buffer[position];
     }
-}
 
-class NullBuilder implements Builder {
-
-    @Override
-    public boolean matches(String input) {
-        Pattern pattern = Pattern.compile("^(null)");
-        Matcher matcher = pattern.matcher(input);
-        return matcher.find();
+    private void skipWhitespace() {
+        while (position < buffer.length && Character.isWhitespace(buffer[position])) {
+            position++;
+        }
     }
 
-    @Override
-    public BuildResult build(String input, ChainBuilder chainBuilder) {
-        Pattern pattern = Pattern.compile("^(null)");
-        Matcher matcher = pattern.matcher(input);
-
-        boolean elementFound = matcher.find();
-        assert elementFound : "Cannot build value from invalid input";
-
-        String encodedBoolean = matcher.group(1);
-        return new BuildResult(input.substring(encodedBoolean.length()).trim(), new JsonParser.NullValue());
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
-}
-
-class BuildResult {
-    public String remaining;
-    public JsonParser.JsonValue value;
 
-    BuildResult(String remaining, JsonParser.JsonValue value) {
-        this.remaining = remaining;
-        this.value = value;
+    private static boolean isDecimalPart(char c) {
+        return c == '.' || c == 'e' || c == 'E';
     }
 }
-
-
-
@@ -0,0 +1,462 @@
+package edu.css.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public class JsonReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+    private long consumed = 0;
+
+    private int[] stack = new int[32];
+    private int stackSize = 0;
+
+    private JsonToken peeked = null;
+    private long peekedInt;
+    private boolean peekedBoolean;
+    private final StringBuilder scratch = new StringBuilder();
+
+    public JsonReader(Reader in) {
+        assert in != null : "reader cannot be null";
+        this.in = in;
+        push(EMPTY_DOCUMENT);
+    }
+
+    public JsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    public JsonToken peek() {
+        if (peeked == null) {
+            peeked = doPeek();
+        }
+        return peeked;
+    }
+
+    public boolean hasNext() {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+
+    public void beginObject() {
+        expect(JsonToken.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+        peeked = null;
+    }
+
+    public void endObject() {
+        expect(JsonToken.END_OBJECT);
+        stackSize--;
+        peeked = null;
+    }
+
+    public void beginArray() {
+        expect(JsonToken.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+        peeked = null;
+    }
+
+    public void endArray() {
+        expect(JsonToken.END_ARRAY);
+        stackSize--;
+        peeked = null;
+    }
+
+    public String nextName() {
+        expect(JsonToken.NAME);
+        peeked = null;
+        return readString();
+    }
+
+    public String nextString() {
+        if (peek() == JsonToken.NULL) {
+            peeked = null;
+            return null;
+        }
+        expect(JsonToken.STRING);
+        peeked = null;
+        return readString();
+    }
+
+    public int nextInt() {
+        expect(JsonToken.INT);
+        if (peekedInt < Integer.MIN_VALUE || peekedInt > Integer.MAX_VALUE) {
+            throw syntaxError("Integer value out of range");
+        }
+        peeked = null;
+        return (int) peekedInt;
+    }
+
+    public long nextLong() {
+        expect(JsonToken.INT);
+        peeked = null;
+        return peekedInt;
+    }
+
+    public double nextDouble() {
+        JsonToken token = peek();
+        if (token == JsonToken.INT) {
+            peeked = null;
+            return peekedInt;
+        }
+        expect(JsonToken.DOUBLE);
+        peeked = null;
+        try {
+            return Double.parseDouble(scratch.toString());
+        } catch (NumberFormatException e) {
+            throw syntaxError("Invalid number format");
+        }
+    }
+
+    public boolean nextBoolean() {
+        expect(JsonToken.BOOLEAN);
+        peeked = null;
+        return peekedBoolean;
+    }
+
+    public void nextNull() {
+        expect(JsonToken.NULL);
+        peeked = null;
+    }
+
+    public void skipValue() {
+        int depth = 0;
+        do {
+            JsonToken token = peek();
+            switch (token) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    depth--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    depth--;
+                    break;
+                case NAME:
+                case STRING:
+                    peeked = null;
+                    skipString();
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("Unexpected end of file");
+                default:
+                    peeked = null;
+            }
+        } while (depth != 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        peeked = null;
+        stackSize = 0;
+        in.close();
+    }
+
+    private void expect(JsonToken expected) {
+        JsonToken actual = peek();
+        if (actual != expected) {
+            throw syntaxError("Expected " + expected + " but was " + actual);
+        }
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private JsonToken doPeek() {
+        int scope = stack[stackSize - 1];
+        int c;
+
+        switch (scope) {
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return JsonToken.END_ARRAY;
+                }
+                if (c == -1) {
+                    throw syntaxError("Unexpected end of file");
+                }
+                pos--;
+                return peekValue();
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return JsonToken.END_ARRAY;
+                }
+                if (c != ',') {
+                    throw syntaxError("Invalid array format");
+                }
+                return peekValue();
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return JsonToken.END_OBJECT;
+                }
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw syntaxError("Invalid object format");
+                    }
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntaxError("Invalid object format");
+                }
+                stack[stackSize - 1] = DANGLING_NAME;
+                return JsonToken.NAME;
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("Invalid property format");
+                }
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                return peekValue();
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                return peekValue();
+            default:
+                if (nextNonWhitespace() != -1) {
+                    throw syntaxError("Unexpected content after end of document");
+                }
+                return JsonToken.END_DOCUMENT;
+        }
+    }
+
+    private JsonToken peekValue() {
+        int c = nextNonWhitespace();
+
+        switch (c) {
+            case -1:
+                throw syntaxError("Unexpected end of file");
+            case '{':
+                return JsonToken.BEGIN_OBJECT;
+            case '[':
+                return JsonToken.BEGIN_ARRAY;
+            case '"':
+                return JsonToken.STRING;
+            case 't':
+                consumeLiteral("rue");
+                peekedBoolean = true;
+                return JsonToken.BOOLEAN;
+            case 'f':
+                consumeLiteral("alse");
+                peekedBoolean = false;
+                return JsonToken.BOOLEAN;
+            case 'n':
+                consumeLiteral("ull");
+                return JsonToken.NULL;
+            default:
+                if (c == '-' || isDigit(c)) {
+                    return peekNumber((char) c);
+                }
+                throw syntaxError("Cannot find property type");
+        }
+    }
+
+    private JsonToken peekNumber(char first) {
+        boolean negative = first == '-';
+        long integral = negative ? 0 : '0' - first;
+        int digits = negative ? 0 : 1;
+        boolean decimal = false;
+        boolean overflow = false;
+
+        scratch.setLength(0);
+        scratch.append(first);
+
+        while (fillIfEmpty()) {
+            char c = buffer[pos];
+            if (isDigit(c)) {
+                //accumulated as a negative number, so Long.MIN_VALUE still fits
+                overflow |= integral < (Long.MIN_VALUE + (c - '0')) / 10;
+                integral = integral * 10 - (c - '0');
+                digits++;
+            } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || (c == '-' && decimal)) {
+                decimal = true;
+            } else {
+                break;
+            }
+            scratch.append(c);
+            pos++;
+        }
+
+        if (digits == 0) {
+            throw syntaxError("Invalid number format");
+        }
+        if (decimal) {
+            return JsonToken.DOUBLE;
+        }
+
+        if (overflow || (!negative && integral == Long.MIN_VALUE)) {
+            throw syntaxError("Integer value out of range");
+        }
+        peekedInt = negative ? integral : -integral;
+        return JsonToken.INT;
+    }
+
+    private String readString() {
+        scratch.setLength(0);
+
+        while (fillIfEmpty()) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos++];
+                if (c == '"') {
+                    if (scratch.length() == 0) {
+                        return new String(buffer, start, pos - start - 1);
+                    }
+                    scratch.append(buffer, start, pos - start - 1);
+                    return scratch.toString();
+                }
+                if (c == '\\') {
+                    scratch.append(buffer, start, pos - start - 1);
+                    scratch.append(readEscape());
+                    start = pos;
+                }
+            }
+            scratch.append(buffer, start, pos - start);
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private void skipString() {
+        while (fillIfEmpty()) {
+            char c = buffer[pos++];
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                readEscape();
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private char readEscape() {
+        int escaped = nextChar();
+
+        switch (escaped) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) escaped;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                return readUnicodeEscape();
+            case -1:
+                throw syntaxError("Unterminated string");
+            default:
+                throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    private char readUnicodeEscape() {
+        int code = 0;
+        for (int i = 0; i < 4; i++) {
+            int c = nextChar();
+            int digit = c == -1 ? -1 : Character.digit((char) c, 16);
+            if (digit == -1) {
+                throw syntaxError("Invalid unicode escape");
+            }
+            code = (code << 4) | digit;
+        }
+        return (char) code;
+    }
+
+    private void consumeLiteral(String remaining) {
+        for (int i = 0; i < remaining.length(); i++) {
+            if (nextChar() != remaining.charAt(i)) {
+                throw syntaxError("Cannot find property type");
+            }
+        }
+    }
+
+    private int nextNonWhitespace() {
+        while (fillIfEmpty()) {
+            char c = buffer[pos++];
+            if (!Character.isWhitespace(c)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private int nextChar() {
+        if (!fillIfEmpty()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private boolean fillIfEmpty() {
+        if (pos < limit) {
+            return true;
+        }
+        try {
+            consumed += limit;
+            pos = 0;
+            limit = 0;
+
+            int read;
+            do {
+                read = in.read(buffer, 0, buffer.length);
+            } while (read == 0);
+
+            if (read == -1) {
+                return false;
+            }
+            limit = read;
+            return true;
+        } catch (IOException e) {
+            throw new JsonParseException("Error reading json input", e);
+        }
+    }
+
+    private JsonParseException syntaxError(String message) {
+        return new JsonParseException(message + " at " + (consumed + pos));
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+}
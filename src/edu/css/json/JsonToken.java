@@ -0,0 +1,19 @@
+package edu.css.json;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public enum JsonToken {
+    BEGIN_OBJECT,
+    END_OBJECT,
+    BEGIN_ARRAY,
+    END_ARRAY,
+    NAME,
+    STRING,
+    INT,
+    DOUBLE,
+    BOOLEAN,
+    NULL,
+    END_DOCUMENT
+}
@@ -0,0 +1,304 @@
+package edu.css.json;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static edu.css.json.JsonParser.*;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public class JsonWriter implements Closeable, Flushable {
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+
+    private int[] stack = new int[32];
+    private int stackSize = 0;
+
+    public JsonWriter(Writer out) {
+        assert out != null : "writer cannot be null";
+        this.out = out;
+        push(EMPTY_DOCUMENT);
+    }
+
+    public JsonWriter(OutputStream out) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    public JsonWriter beginObject() {
+        beforeValue();
+        push(EMPTY_OBJECT);
+        return write('{');
+    }
+
+    public JsonWriter endObject() {
+        int scope = peekScope();
+        if (scope != EMPTY_OBJECT && scope != NONEMPTY_OBJECT) {
+            throw new JsonParseException("endObject called outside of an object");
+        }
+        stackSize--;
+        return write('}');
+    }
+
+    public JsonWriter beginArray() {
+        beforeValue();
+        push(EMPTY_ARRAY);
+        return write('[');
+    }
+
+    public JsonWriter endArray() {
+        int scope = peekScope();
+        if (scope != EMPTY_ARRAY && scope != NONEMPTY_ARRAY) {
+            throw new JsonParseException("endArray called outside of an array");
+        }
+        stackSize--;
+        return write(']');
+    }
+
+    public JsonWriter name(String name) {
+        assert name != null : "property name cannot be null";
+
+        int scope = peekScope();
+        if (scope == NONEMPTY_OBJECT) {
+            write(',');
+        } else if (scope != EMPTY_OBJECT) {
+            throw new JsonParseException("name called outside of an object");
+        }
+        stack[stackSize - 1] = DANGLING_NAME;
+        writeString(name);
+        return write(':');
+    }
+
+    public JsonWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(Integer value) {
+        if (value == null) {
+            return nullValue();
+        }
+        return value(value.intValue());
+    }
+
+    public JsonWriter value(int value) {
+        beforeValue();
+        return write(Integer.toString(value));
+    }
+
+    public JsonWriter value(long value) {
+        beforeValue();
+        return write(Long.toString(value));
+    }
+
+    public JsonWriter value(Double value) {
+        if (value == null) {
+            return nullValue();
+        }
+        return value(value.doubleValue());
+    }
+
+    public JsonWriter value(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new JsonParseException("Numeric values must be finite: " + value);
+        }
+        beforeValue();
+        return write(Double.toString(value));
+    }
+
+    public JsonWriter value(Boolean value) {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        return write(value ? "true" : "false");
+    }
+
+    public JsonWriter nullValue() {
+        beforeValue();
+        return write("null");
+    }
+
+    public JsonWriter value(JsonValue value) {
+        if (value == null || value instanceof NullValue) {
+            return nullValue();
+        }
+        if (value instanceof ObjectValue) {
+            return objectValue((ObjectValue) value);
+        }
+        if (value instanceof ArrayValue) {
+            return arrayValue((ArrayValue) value);
+        }
+        if (value instanceof StringValue) {
+            return value(((StringValue) value).value());
+        }
+        if (value instanceof IntValue) {
+            return value(((IntValue) value).value());
+        }
+        if (value instanceof DoubleValue) {
+            return value(((DoubleValue) value).value());
+        }
+        if (value instanceof BooleanValue) {
+            return value(((BooleanValue) value).value());
+        }
+        throw new JsonParseException("Unsupported json value: " + value.getClass().getName());
+    }
+
+    private JsonWriter objectValue(ObjectValue value) {
+        beginObject();
+        for (Map.Entry<String, JsonValue> property : value.properties().entrySet()) {
+            name(property.getKey());
+            value(property.getValue());
+        }
+        return endObject();
+    }
+
+    private JsonWriter arrayValue(ArrayValue value) {
+        beginArray();
+        List<JsonValue> properties = value.properties();
+        for (int i = 0; i < properties.size(); i++) {
+            value(properties.get(i));
+        }
+        return endArray();
+    }
+
+    @Override
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new JsonParseException("Error writing json output", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+
+        if (stackSize != 1 || peekScope() != NONEMPTY_DOCUMENT) {
+            throw new JsonParseException("Incomplete document");
+        }
+    }
+
+    private void beforeValue() {
+        switch (peekScope()) {
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                break;
+            case NONEMPTY_ARRAY:
+                write(',');
+                break;
+            case DANGLING_NAME:
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                break;
+            case NONEMPTY_DOCUMENT:
+                throw new JsonParseException("Json document must have only one top level value");
+            default:
+                throw new JsonParseException("Property name expected before value");
+        }
+    }
+
+    private void writeString(String value) {
+        write('"');
+        try {
+            int last = 0;
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    continue;
+                }
+                if (last < i) {
+                    out.write(value, last, i - last);
+                }
+                writeEscaped(c);
+                last = i + 1;
+            }
+            if (last < length) {
+                out.write(value, last, length - last);
+            }
+        } catch (IOException e) {
+            throw new JsonParseException("Error writing json output", e);
+        }
+        write('"');
+    }
+
+    private void writeEscaped(char c) throws IOException {
+        switch (c) {
+            case '"':
+                out.write("\\\"");
+                break;
+            case '\\':
+                out.write("\\\\");
+                break;
+            case '\n':
+                out.write("\\n");
+                break;
+            case '\r':
+                out.write("\\r");
+                break;
+            case '\t':
+                out.write("\\t");
+                break;
+            default:
+                out.write("\\u00");
+                out.write(HEX[c >> 4]);
+                out.write(HEX[c & 0xf]);
+        }
+    }
+
+    private JsonWriter write(char c) {
+        try {
+            out.write(c);
+        } catch (IOException e) {
+            throw new JsonParseException("Error writing json output", e);
+        }
+        return this;
+    }
+
+    private JsonWriter write(String s) {
+        try {
+            out.write(s);
+        } catch (IOException e) {
+            throw new JsonParseException("Error writing json output", e);
+        }
+        return this;
+    }
+
+    private int peekScope() {
+        return stack[stackSize - 1];
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+}
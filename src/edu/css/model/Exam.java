@@ -33,6 +33,13 @@ public class Exam {
         this.studentId = studentId;
     }
 
+    public Exam(Exam exam) {
+        assert exam != null : "Invalid exam to copy";
+        this.id = exam.getId();
+        this.mark = exam.getMark();
+        this.studentId = exam.getStudentId();
+    }
+
     public Integer getId() {
         return id;
     }
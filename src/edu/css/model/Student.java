@@ -30,6 +30,13 @@ public class Student {
         this.average = average;
     }
 
+    public Student(Student student) {
+        assert student != null : "Invalid student to copy";
+        this.id = student.getId();
+        this.name = student.getName();
+        this.average = student.getAverage();
+    }
+
     public Integer getId() {
         return id;
     }
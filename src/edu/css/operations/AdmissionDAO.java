@@ -0,0 +1,58 @@
+package edu.css.operations;
+
+import edu.css.db.JsonDB;
+import edu.css.db.Operator;
+import edu.css.db.Page;
+import edu.css.db.Pair;
+import edu.css.model.Exam;
+import edu.css.model.Student;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public class AdmissionDAO {
+    private JsonDB jsonDB;
+
+    public AdmissionDAO(JsonDB jsonDB) {
+        assert jsonDB != null : "JsonDB argument is null";
+        this.jsonDB = jsonDB;
+    }
+
+    //students in the same order as StudentDAO.getStudents, each paired with its exam or with null
+    public List<Pair<Student, Exam>> getResults()
+    {
+        jsonDB.begin();
+        List<Pair<Student, Exam>> results = jsonDB.query(Student.class)
+                .orderByDescending("id")
+                .join(jsonDB.query(Exam.class), "id", "studentId");
+        jsonDB.end(false);
+        return results;
+    }
+
+    //same order as getResults, only the exams of the students on the page are looked up
+    public Page<Pair<Student, Exam>> getResultPage(int pageSize, Integer afterId)
+    {
+        jsonDB.begin();
+        Page<Student> students = jsonDB.query(Student.class).orderByDescending("id").page(pageSize, afterId);
+        List<Integer> studentIds = new ArrayList<>();
+        for (Student student : students.getItems())
+            studentIds.add(student.getId());
+        List<Exam> exams = jsonDB.query(Exam.class).where("studentId", Operator.IN, studentIds).list();
+        jsonDB.end(false);
+
+        Map<Integer, Exam> examsByStudent = new HashMap<>();
+        for (Exam exam : exams)
+            if (!examsByStudent.containsKey(exam.getStudentId()))
+                examsByStudent.put(exam.getStudentId(), exam);
+        List<Pair<Student, Exam>> results = new ArrayList<>();
+        for (Student student : students.getItems())
+            results.add(new Pair<>(student, examsByStudent.get(student.getId())));
+        return new Page<>(results, students.getNextKey());
+    }
+}
@@ -15,21 +15,40 @@ import java.io.File;
 public class DAOLoader {
 
     private static JsonDB jsonDB;
+    //the DAOs are shared, so every window sees the same entity caches
+    private static StudentDAO studentDAO;
+    private static ExamDAO examDAO;
+    private static AdmissionDAO admissionDAO;
     static {
 //        String projectPath = System.getProperty("user.dir");
 //        String dbPath = new File(projectPath, "db/student").getAbsolutePath();
 
         jsonDB = JsonDBImpl.fromFile("db/student");
         assert jsonDB != null : "JsonDB not loaded";
+
+        studentDAO = new StudentDAO(jsonDB);
+        examDAO = new ExamDAO(jsonDB);
+        admissionDAO = new AdmissionDAO(jsonDB);
     }
 
     public static StudentDAO getStudentDAO()
     {
-        return new StudentDAO(jsonDB);
+        return studentDAO;
     }
 
     public static ExamDAO getExamDAO()
     {
-        return new ExamDAO(jsonDB);
+        return examDAO;
+    }
+
+    public static AdmissionDAO getAdmissionDAO()
+    {
+        return admissionDAO;
+    }
+
+    //folds the table segments and logs written so far back into the data file
+    public static void compactDatabase()
+    {
+        jsonDB.compact();
     }
 }
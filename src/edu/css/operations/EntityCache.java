@@ -0,0 +1,88 @@
+package edu.css.operations;
+
+import com.google.common.base.Function;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+class EntityCache<T> {
+    private final int maxSize;
+    //entities are mutable, so the cache only ever hands out and keeps its own copies
+    private final Function<T, T> copier;
+    private final Map<Integer, T> entries;
+    private List<T> ordered = null;
+    //bumped on every invalidation, so a read that raced with one is not cached
+    private long generation = 0;
+
+    EntityCache(final int maxSize, Function<T, T> copier) {
+        assert maxSize > 0 : "cache size must be positive";
+        assert copier != null : "entity copier cannot be null";
+
+        this.maxSize = maxSize;
+        this.copier = copier;
+        this.entries = new LinkedHashMap<Integer, T>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                return size() > EntityCache.this.maxSize;
+            }
+        };
+    }
+
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    synchronized T get(Integer key) {
+        T entity = entries.get(key);
+        return entity == null ? null : copier.apply(entity);
+    }
+
+    synchronized void put(Integer key, T entity, long readGeneration) {
+        if (readGeneration == generation) {
+            entries.put(key, copier.apply(entity));
+        }
+    }
+
+    synchronized void written(Integer key, T entity) {
+        ordered = null;
+        generation++;
+        entries.put(key, copier.apply(entity));
+    }
+
+    synchronized void removed(Integer key) {
+        ordered = null;
+        generation++;
+        entries.remove(key);
+    }
+
+    synchronized List<T> getOrdered() {
+        return ordered == null ? null : copyAll(ordered);
+    }
+
+    synchronized void putOrdered(List<T> entities, long readGeneration) {
+        //the view holds every entity, so it is only kept while that fits in the size limit
+        if (readGeneration == generation && entities.size() <= maxSize) {
+            ordered = copyAll(entities);
+        }
+    }
+
+    private List<T> copyAll(List<T> entities) {
+        List<T> copies = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            copies.add(copier.apply(entity));
+        }
+        return copies;
+    }
+
+    synchronized void clear() {
+        ordered = null;
+        generation++;
+        entries.clear();
+    }
+}
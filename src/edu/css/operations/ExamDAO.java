@@ -1,10 +1,19 @@
 package edu.css.operations;
 
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import edu.css.db.ChangeListener;
 import edu.css.db.JsonDB;
+import edu.css.db.Operator;
 import edu.css.model.Exam;
 import edu.css.model.Student;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Created with IntelliJ IDEA.
@@ -14,18 +23,59 @@ import java.util.List;
  * To change this template use File | Settings | File Templates.
  */
 public class ExamDAO {
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+    private static final Function<Exam, Exam> COPY_EXAM = new Function<Exam, Exam>() {
+        @Override
+        public Exam apply(Exam exam) {
+            return new Exam(exam);
+        }
+    };
+
     private JsonDB jsonDB;
+    private final EntityCache<Exam> cache;
+    //the exam found for each student, only a hint: it is checked against the cached exam on every lookup
+    private final EntityCache<Integer> studentExams;
+    //set while this DAO commits, its own writes update the cache entry by entry instead of clearing it
+    private final ThreadLocal<Boolean> committing = new ThreadLocal<>();
 
     public ExamDAO(JsonDB jsonDB) {
+        this(jsonDB, DEFAULT_CACHE_SIZE);
+    }
+
+    public ExamDAO(JsonDB jsonDB, int cacheSize) {
         assert jsonDB != null : "JsonDB argument is null";
         this.jsonDB = jsonDB;
+        this.cache = new EntityCache<>(cacheSize, COPY_EXAM);
+        this.studentExams = new EntityCache<>(cacheSize, Functions.<Integer>identity());
+
+        jsonDB.addChangeListener(new ChangeListener() {
+            @Override
+            public void changed(Class<?> entityClass) {
+                if (entityClass == Exam.class && committing.get() == null) {
+                    cache.clear();
+                    studentExams.clear();
+                }
+            }
+        });
     }
 
     public void addExam(Exam exam)
     {
         jsonDB.begin();
         jsonDB.save(exam);
-        jsonDB.end(true);
+        commit();
+        written(exam);
+    }
+
+    public void addExams(Collection<Exam> exams)
+    {
+        assert exams != null : "Invalid exams argument NullValue";
+
+        jsonDB.begin();
+        jsonDB.saveAll(exams);
+        commit();
+        for (Exam exam : exams)
+            written(exam);
     }
 
     public void updateExam(Exam exam)
@@ -34,7 +84,8 @@ public class ExamDAO {
 
         jsonDB.begin();
         jsonDB.save(exam);
-        jsonDB.end(true);
+        commit();
+        written(exam);
     }
 
     public void deleteExam(Exam exam)
@@ -43,21 +94,93 @@ public class ExamDAO {
 
         jsonDB.begin();
         jsonDB.delete(exam);
-        jsonDB.end(true);
+        commit();
+        cache.removed(exam.getId());
+    }
+
+    public void deleteExams(Collection<Exam> exams)
+    {
+        assert exams != null : "Invalid exams argument NullValue";
+
+        jsonDB.begin();
+        jsonDB.deleteAll(exams);
+        commit();
+        for (Exam exam : exams)
+            cache.removed(exam.getId());
     }
 
     public Exam getExamForStudent(Student student)
     {
         assert student != null : "Student is null";
+        Integer examId = studentExams.get(student.getId());
+        Exam exam = examId == null ? null : cache.get(examId);
+        //an exam moved to another student since it was found leaves a stale hint behind
+        if (exam != null && student.getId().equals(exam.getStudentId()))
+            return exam;
+
+        long generation = cache.getGeneration();
+        long hintGeneration = studentExams.getGeneration();
         jsonDB.begin();
-        List<Exam> examList = jsonDB.getAll(Exam.class);
+        List<Exam> examList = jsonDB.findBy("studentId", student.getId(), Exam.class);
         jsonDB.end(false);
-        for (Exam exam : examList) {
-            if(exam.getStudentId() == student.getId())
-                return exam;
+
+        if (examList.isEmpty())
+            return null;
+        cached(examList.get(0), generation, hintGeneration);
+        return examList.get(0);
+    }
+
+    private void commit()
+    {
+        committing.set(Boolean.TRUE);
+        try {
+            jsonDB.end(true);
+        } finally {
+            committing.remove();
+        }
+    }
+
+    //the student may now have an exam that comes before the one found for it earlier
+    private void written(Exam exam)
+    {
+        if (exam.getId() != null)
+            cache.written(exam.getId(), exam);
+        studentExams.removed(exam.getStudentId());
+    }
+
+    private void cached(Exam exam, long generation, long hintGeneration)
+    {
+        if (exam.getId() == null)
+            return;
+        cache.put(exam.getId(), exam, generation);
+        studentExams.put(exam.getStudentId(), exam.getId(), hintGeneration);
+    }
+
+    //exams keyed by student id, students without an exam are missing from the map
+    public Map<Integer, Exam> getExamsForStudents(Collection<Student> students)
+    {
+        assert students != null : "Students are null";
+
+        Set<Integer> studentIds = new HashSet<>();
+        for (Student student : students) {
+            assert student != null : "Student is null";
+            studentIds.add(student.getId());
         }
 
-        return null;
+        long generation = cache.getGeneration();
+        long hintGeneration = studentExams.getGeneration();
+        jsonDB.begin();
+        List<Exam> examList = jsonDB.query(Exam.class).where("studentId", Operator.IN, studentIds).list();
+        jsonDB.end(false);
+
+        Map<Integer, Exam> exams = new HashMap<>();
+        for (Exam exam : examList) {
+            if (!exams.containsKey(exam.getStudentId())) {
+                exams.put(exam.getStudentId(), exam);
+                cached(exam, generation, hintGeneration);
+            }
+        }
+        return exams;
     }
 
 }
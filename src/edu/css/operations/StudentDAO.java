@@ -1,9 +1,12 @@
 package edu.css.operations;
 
+import com.google.common.base.Function;
+import edu.css.db.ChangeListener;
 import edu.css.db.JsonDB;
+import edu.css.db.Page;
 import edu.css.model.Student;
 
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,29 +17,130 @@ import java.util.List;
  * To change this template use File | Settings | File Templates.
  */
 public class StudentDAO {
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+    private static final Function<Student, Student> COPY_STUDENT = new Function<Student, Student>() {
+        @Override
+        public Student apply(Student student) {
+            return new Student(student);
+        }
+    };
 
     private JsonDB jsonDB;
+    private final EntityCache<Student> cache;
+    //set while this DAO commits, its own writes update the cache entry by entry instead of clearing it
+    private final ThreadLocal<Boolean> committing = new ThreadLocal<>();
 
     public StudentDAO(JsonDB jsonDB) {
+        this(jsonDB, DEFAULT_CACHE_SIZE);
+    }
+
+    public StudentDAO(JsonDB jsonDB, int cacheSize) {
         assert jsonDB != null : "Invalid database : NullValue";
         this.jsonDB = jsonDB;
+        this.cache = new EntityCache<>(cacheSize, COPY_STUDENT);
+
+        jsonDB.addChangeListener(new ChangeListener() {
+            @Override
+            public void changed(Class<?> entityClass) {
+                if (entityClass == Student.class && committing.get() == null) {
+                    cache.clear();
+                }
+            }
+        });
     }
 
     public List<Student> getStudents()
     {
+        List<Student> studentList = cache.getOrdered();
+        if (studentList != null)
+            return studentList;
+
+        long generation = cache.getGeneration();
+        jsonDB.begin();
+        studentList = jsonDB.query(Student.class).orderByDescending("id").list();
+        jsonDB.end(false);
+        cache.putOrdered(studentList, generation);
+        return studentList;
+    }
+
+    //the newest students first, skipping the first offset ones
+    public List<Student> getStudents(int offset, int limit)
+    {
+        assert offset >= 0 : "Invalid offset argument NegativeValue";
+        assert limit >= 0 : "Invalid limit argument NegativeValue";
         jsonDB.begin();
-        List<Student> studentList = jsonDB.getAll(Student.class);
+        List<Student> studentList = jsonDB.query(Student.class).orderByDescending("id").offset(offset).limit(limit).list();
         jsonDB.end(false);
-        Collections.sort(studentList, StudentIdComparator.getInstance());
         return studentList;
     }
 
+    //the newest students first, continuing after afterId when it is given
+    public Page<Student> getStudentPage(int pageSize, Integer afterId)
+    {
+        jsonDB.begin();
+        Page<Student> page = jsonDB.query(Student.class).orderByDescending("id").page(pageSize, afterId);
+        jsonDB.end(false);
+        return page;
+    }
+
+    //same order as getStudentPage, but only the id and the name are loaded
+    public Page<Student> getStudentNamePage(int pageSize, Integer afterId)
+    {
+        jsonDB.begin();
+        Page<Student> page = jsonDB.query(Student.class).select("name").orderByDescending("id").page(pageSize, afterId);
+        jsonDB.end(false);
+        return page;
+    }
+
+    public Student getStudent(Integer id)
+    {
+        assert id != null : "Invalid id argument NullValue";
+        Student student = cache.get(id);
+        if (student != null)
+            return student;
+
+        long generation = cache.getGeneration();
+        jsonDB.begin();
+        student = jsonDB.find(id, Student.class);
+        jsonDB.end(false);
+        if (student != null)
+            cache.put(id, student, generation);
+        return student;
+    }
+
+    public int countStudents()
+    {
+        jsonDB.begin();
+        int studentCount = jsonDB.count(Student.class);
+        jsonDB.end(false);
+        return studentCount;
+    }
+
+    public boolean hasStudents()
+    {
+        jsonDB.begin();
+        boolean hasStudents = jsonDB.iterate(Student.class).hasNext();
+        jsonDB.end(false);
+        return hasStudents;
+    }
+
     public void addStudent(Student student)
     {
         assert student != null : "Invalid student argument NullValue";
         jsonDB.begin();
         jsonDB.save(student);
-        jsonDB.end(true);
+        commit();
+        cache.written(student.getId(), student);
+    }
+
+    public void addStudents(Collection<Student> students)
+    {
+        assert students != null : "Invalid students argument NullValue";
+        jsonDB.begin();
+        jsonDB.saveAll(students);
+        commit();
+        for (Student student : students)
+            cache.written(student.getId(), student);
     }
 
     public void updateStudent(Student student)
@@ -44,7 +148,8 @@ public class StudentDAO {
         assert student != null : "Invalid student argument NullValue";
         jsonDB.begin();
         jsonDB.save(student);
-        jsonDB.end(true);
+        commit();
+        cache.written(student.getId(), student);
     }
 
     public void deleteStudent(Student student)
@@ -52,7 +157,28 @@ public class StudentDAO {
         assert student != null : "Invalid student argument NullValue";
         jsonDB.begin();
         jsonDB.delete(student);
-        jsonDB.end(true);
+        commit();
+        cache.removed(student.getId());
+    }
+
+    public void deleteStudents(Collection<Student> students)
+    {
+        assert students != null : "Invalid students argument NullValue";
+        jsonDB.begin();
+        jsonDB.deleteAll(students);
+        commit();
+        for (Student student : students)
+            cache.removed(student.getId());
+    }
+
+    private void commit()
+    {
+        committing.set(Boolean.TRUE);
+        try {
+            jsonDB.end(true);
+        } finally {
+            committing.remove();
+        }
     }
 
 }
@@ -24,6 +24,6 @@ class StudentIdComparator implements Comparator<Student>
 
     @Override
     public int compare(Student o1, Student o2) {
-        return o2.getId() - o1.getId();
+        return Integer.compare(o2.getId(), o1.getId());
     }
 }
@@ -98,7 +98,7 @@ public class AddStudentWindow extends JDialog {
         }
         assert studentDAO != null : ASSERTION_FAIL + "OnOK -> Null studentDAO";
         studentDAO.addStudent(student);
-        assert !studentDAO.getStudents().isEmpty() : ASSERTION_FAIL + "OnOK -> studentDAO.addStudent(x) didn't worked!!!";
+        assert studentDAO.hasStudents() : ASSERTION_FAIL + "OnOK -> studentDAO.addStudent(x) didn't worked!!!";
 
         assert exam != null : ASSERTION_FAIL + "OnOK -> Null exam";
         exam.setStudentId(student.getId());
@@ -1,9 +1,8 @@
 package main.ui;
 
 import edu.css.java.ReportGenerator;
+import edu.css.operations.AdmissionDAO;
 import edu.css.operations.DAOLoader;
-import edu.css.operations.ExamDAO;
-import edu.css.operations.StudentDAO;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -19,8 +18,7 @@ public class MainWindow extends JDialog {
     private JButton calculateButton;
     private JButton reportButton;
     private JButton viewStudentsButton;
-    private static StudentDAO studentDAO = DAOLoader.getStudentDAO();
-    private static ExamDAO examDAO = DAOLoader.getExamDAO();
+    private static AdmissionDAO admissionDAO = DAOLoader.getAdmissionDAO();
 
     public MainWindow() {
         setContentPane(contentPane);
@@ -101,10 +99,9 @@ public class MainWindow extends JDialog {
         String filename = fileChooser.getSelectedFile().getAbsolutePath();
         assert filename != null : AddStudentWindow.ASSERTION_FAIL + "onReport, invalid filename path";
 
-        assert studentDAO != null : AddStudentWindow.ASSERTION_FAIL + "onReport, invalid studentDAO object";
-        assert examDAO != null : AddStudentWindow.ASSERTION_FAIL + "onReport, invalid examDAO object";
+        assert admissionDAO != null : AddStudentWindow.ASSERTION_FAIL + "onReport, invalid admissionDAO object";
 
-        ReportGenerator reportGenerator = new ReportGenerator(studentDAO.getStudents(), examDAO, filename);
+        ReportGenerator reportGenerator = new ReportGenerator(admissionDAO.getResults(), filename);
         reportGenerator.generate();
 
         filename = reportGenerator.getOutputFileName();
@@ -153,6 +150,7 @@ public class MainWindow extends JDialog {
         MainWindow dialog = new MainWindow();
         dialog.pack();
         dialog.setVisible(true);
+        DAOLoader.compactDatabase();
         System.exit(0);
     }
 }
@@ -0,0 +1,44 @@
+package main.ui;
+
+import edu.css.db.Page;
+
+import java.util.ArrayList;
+import java.util.List;
+
+abstract class PagedList<T> {
+    private final int size;
+    private final int pageSize;
+    private final List<Page<T>> pages = new ArrayList<>();
+
+    PagedList(int size, int pageSize) {
+        assert size >= 0 : AddStudentWindow.ASSERTION_FAIL + "PagedList, size cannot be negative";
+        assert pageSize > 0 : AddStudentWindow.ASSERTION_FAIL + "PagedList, pageSize must be positive";
+
+        this.size = size;
+        this.pageSize = pageSize;
+    }
+
+    protected abstract Page<T> loadPage(int pageSize, Integer afterKey);
+
+    int size() {
+        return size;
+    }
+
+    //null when the rows changed since the list was created and the index is no longer there
+    T get(int index) {
+        assert index >= 0 && index < size : AddStudentWindow.ASSERTION_FAIL + "PagedList, index out of range " + index;
+
+        int pageIndex = index / pageSize;
+        while (pages.size() <= pageIndex) {
+            Page<T> lastPage = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+            if (lastPage != null && !lastPage.hasNext()) {
+                return null;
+            }
+            pages.add(loadPage(pageSize, lastPage == null ? null : lastPage.getNextKey()));
+        }
+
+        List<T> items = pages.get(pageIndex).getItems();
+        int position = index % pageSize;
+        return position < items.size() ? items.get(position) : null;
+    }
+}
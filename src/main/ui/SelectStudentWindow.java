@@ -1,5 +1,6 @@
 package main.ui;
 
+import edu.css.db.Page;
 import edu.css.model.Exam;
 import edu.css.model.Student;
 import edu.css.operations.DAOLoader;
@@ -8,17 +9,19 @@ import edu.css.operations.StudentDAO;
 
 import javax.swing.*;
 import java.awt.event.*;
-import java.util.List;
 
 public class SelectStudentWindow extends JDialog {
     private JPanel contentPane;
     private JButton buttonOK;
     private JButton buttonCancel;
-    private JComboBox studentsComboBox;
+    private JComboBox<Student> studentsComboBox;
     private JButton editButton;
     private JButton deleteButton;
     private JButton addButton;
 
+    private static final int PAGE_SIZE = 100;
+    private static final Student PROTOTYPE_DISPLAY_VALUE = new Student("XXXXXXXXXXXXXXXXXXXXXXXXXXXXXX", 0.0);
+
     private StudentDAO studentDAO = DAOLoader.getStudentDAO();
     private ExamDAO examDAO = DAOLoader.getExamDAO();
 
@@ -77,16 +80,21 @@ public class SelectStudentWindow extends JDialog {
     private void setStudentsComboBox(){
         //call to get Students
         assert studentDAO != null : AddStudentWindow.ASSERTION_FAIL + "setStudentsComboBox, studentDAO cannot be null";
-        List<Student> studentList = studentDAO.getStudents();
-        assert studentList != null : AddStudentWindow.ASSERTION_FAIL + "setStudentsComboBox, studentsList cannot be null";
-
-        DefaultComboBoxModel model = new DefaultComboBoxModel(studentList.toArray());
-        if(model.getSize() == 0){
-            model.addElement("No items");
-        }else{
-            model.setSelectedItem(studentList.get(0));
-        }
+        int studentCount = studentDAO.countStudents();
+
+        //names are loaded a page at a time, as the popup list scrolls over them
+        final PagedList<Student> students = new PagedList<Student>(studentCount, PAGE_SIZE) {
+            @Override
+            protected Page<Student> loadPage(int pageSize, Integer afterKey) {
+                return studentDAO.getStudentNamePage(pageSize, afterKey);
+            }
+        };
+        ComboBoxModel<Student> model = new PagedComboBoxModel(students);
+        model.setSelectedItem(studentCount == 0 ? null : students.get(0));
+        //without a prototype the combo box measures every item to size itself
+        studentsComboBox.setPrototypeDisplayValue(PROTOTYPE_DISPLAY_VALUE);
         studentsComboBox.setModel(model);
+        studentsComboBox.setEnabled(studentCount != 0);
         studentsComboBox.updateUI();
     }
 
@@ -108,9 +116,9 @@ public class SelectStudentWindow extends JDialog {
 
             Exam exam = examDAO.getExamForStudent(student);
 
-            int studentCount = studentDAO.getStudents().size();
+            int studentCount = studentDAO.countStudents();
             studentDAO.deleteStudent(student);
-            assert studentDAO.getStudents().size() == studentCount-1 : AddStudentWindow.ASSERTION_FAIL + "" +
+            assert studentDAO.countStudents() == studentCount-1 : AddStudentWindow.ASSERTION_FAIL + "" +
                     "                                                       onDeleteOperation, invalid delete student operation";
 
             examDAO.deleteExam(exam);
@@ -125,15 +133,13 @@ public class SelectStudentWindow extends JDialog {
         assert action.equalsIgnoreCase("delete") ||
                action.equalsIgnoreCase("edit") : AddStudentWindow.ASSERTION_FAIL +
                                                     "getSelectedIndex, invalid action [delete / edit ] allowed, no " + action +" allowed";
-        try{
-            Student selectedStudent = (Student) studentsComboBox.getSelectedItem();
-            assert selectedStudent != null : AddStudentWindow.ASSERTION_FAIL +
-                                                "getSelectedIndex, invalid selected object, student expected, got null";
-            if(0 == JOptionPane.showConfirmDialog(null,"Are you sure you want to " + action.toLowerCase() + " " + selectedStudent.toString(),action.toUpperCase(), JOptionPane.YES_NO_OPTION )){
-                return selectedStudent;
-            }
-        }catch (ClassCastException e){
+        Student selectedStudent = (Student) studentsComboBox.getSelectedItem();
+        if(selectedStudent == null){
             MainWindow.showMessageWindow("No registered Students",action.toUpperCase());
+            return null;
+        }
+        if(0 == JOptionPane.showConfirmDialog(null,"Are you sure you want to " + action.toLowerCase() + " " + selectedStudent.toString(),action.toUpperCase(), JOptionPane.YES_NO_OPTION )){
+            return selectedStudent;
         }
         return null;
     }
@@ -144,6 +150,9 @@ public class SelectStudentWindow extends JDialog {
             return;
         }
         assert student != null : AddStudentWindow.ASSERTION_FAIL + "onEditButton, student cannot be null";
+        //the combo box only holds student names, the edit window needs the whole student
+        student = studentDAO.getStudent(student.getId());
+        assert student != null : AddStudentWindow.ASSERTION_FAIL + "onEditButton, selected student no longer exists";
         AddStudentWindow addStudentWindow = new AddStudentWindow(student);
         MainWindow.runWindow(addStudentWindow);
         setStudentsComboBox();
@@ -154,4 +163,36 @@ public class SelectStudentWindow extends JDialog {
         MainWindow.runWindow(addStudentWindow);
         setStudentsComboBox();
     }
+
+    private static class PagedComboBoxModel extends AbstractListModel<Student> implements ComboBoxModel<Student> {
+        private static final long serialVersionUID = 1L;
+
+        private final PagedList<Student> students;
+        private Object selectedItem;
+
+        PagedComboBoxModel(PagedList<Student> students) {
+            this.students = students;
+        }
+
+        @Override
+        public int getSize() {
+            return students.size();
+        }
+
+        @Override
+        public Student getElementAt(int index) {
+            return students.get(index);
+        }
+
+        @Override
+        public void setSelectedItem(Object item) {
+            selectedItem = item;
+            fireContentsChanged(this, -1, -1);
+        }
+
+        @Override
+        public Object getSelectedItem() {
+            return selectedItem;
+        }
+    }
 }
@@ -1,16 +1,17 @@
 package main.ui;
 
+import edu.css.db.Page;
+import edu.css.db.Pair;
 import edu.css.model.Exam;
 import edu.css.model.Student;
 import edu.css.model.StudentExportMetadata;
+import edu.css.operations.AdmissionDAO;
 import edu.css.operations.DAOLoader;
-import edu.css.operations.ExamDAO;
 import edu.css.operations.StudentDAO;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.AbstractTableModel;
 import java.awt.event.*;
-import java.util.List;
 
 public class ShowResultsWindow extends JDialog {
     private JPanel contentPane;
@@ -19,8 +20,10 @@ public class ShowResultsWindow extends JDialog {
     private JTable studentsTable;
     private JButton reportButton;
 
+    private static final int PAGE_SIZE = 100;
+
+    private AdmissionDAO admissionDAO = DAOLoader.getAdmissionDAO();
     private StudentDAO studentDAO = DAOLoader.getStudentDAO();
-    private ExamDAO examDAO = DAOLoader.getExamDAO();
 
     public ShowResultsWindow() {
         setContentPane(contentPane);
@@ -65,33 +68,22 @@ public class ShowResultsWindow extends JDialog {
 
     private void updateModel(){
 
+        assert admissionDAO != null : AddStudentWindow.ASSERTION_FAIL + "updateModel, admissionDAO cannot be null";
         assert studentDAO != null : AddStudentWindow.ASSERTION_FAIL + "updateModel, studentDAO cannot be null";
-        assert examDAO != null : AddStudentWindow.ASSERTION_FAIL + "updateModel, examDAO cannot be null";
-
-        List<Student> studentList = studentDAO.getStudents();
-        assert studentList != null : AddStudentWindow.ASSERTION_FAIL + "updateModel, studentsList cannot be null";
 
         String[] columnNames = StudentExportMetadata.columnNames;
         assert columnNames != null && columnNames.length == 6 : AddStudentWindow.ASSERTION_FAIL +
                                                                 "updateModel, invalid columnNames array";
-        DefaultTableModel tableModel = new DefaultTableModel(columnNames,studentList.size());
-        Object[][] data = new Object[studentList.size()][columnNames.length];
-        for (int i = 0; i < studentList.size(); i++) {
-
-            Student student = studentList.get(i);
-            Exam exam = examDAO.getExamForStudent(student);
-
-            assert student != null : AddStudentWindow.ASSERTION_FAIL + "updateModel, student cannot be null";
-            assert exam != null : AddStudentWindow.ASSERTION_FAIL + "updateModel, exam cannot be null";
-
-            data[i] = StudentExportMetadata.getDataVector(student, exam);
-        }
 
-        assert data != null && data.length == studentList.size() : AddStudentWindow.ASSERTION_FAIL +
-                                                                   "updateModel, invalid data";
+        //rows are loaded a page at a time, as the table scrolls over them
+        final PagedList<Pair<Student, Exam>> results = new PagedList<Pair<Student, Exam>>(studentDAO.countStudents(), PAGE_SIZE) {
+            @Override
+            protected Page<Pair<Student, Exam>> loadPage(int pageSize, Integer afterKey) {
+                return admissionDAO.getResultPage(pageSize, afterKey);
+            }
+        };
 
-        tableModel.setDataVector(data,columnNames);
-        studentsTable.setModel(tableModel);
+        studentsTable.setModel(new ResultsTableModel(results, columnNames));
     }
 
     private void onReportButtonClick(){
@@ -107,4 +99,47 @@ public class ShowResultsWindow extends JDialog {
 // add your code here if necessary
         dispose();
     }
+
+    private static class ResultsTableModel extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+
+        private final PagedList<Pair<Student, Exam>> results;
+        private final String[] columnNames;
+
+        ResultsTableModel(PagedList<Pair<Student, Exam>> results, String[] columnNames) {
+            this.results = results;
+            this.columnNames = columnNames;
+        }
+
+        @Override
+        public int getRowCount() {
+            return results.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columnNames[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            Pair<Student, Exam> result = results.get(rowIndex);
+            if (result == null) {
+                return null;
+            }
+
+            Student student = result.getLeft();
+            Exam exam = result.getRight();
+
+            assert student != null : AddStudentWindow.ASSERTION_FAIL + "updateModel, student cannot be null";
+            assert exam != null : AddStudentWindow.ASSERTION_FAIL + "updateModel, exam cannot be null";
+
+            return StudentExportMetadata.getDataVector(student, exam)[columnIndex];
+        }
+    }
 }
@@ -1,17 +1,29 @@
 package edu.css.db;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ContiguousSet;
+import com.google.common.io.Files;
 import org.junit.Before;
 import org.junit.Test;
 
 import javax.annotation.Nullable;
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import static com.google.common.collect.DiscreteDomain.integers;
 import static com.google.common.collect.FluentIterable.from;
@@ -162,6 +174,7 @@ public class JsonDBTest {
     }
 
     private void insertDataPrecondition(String precondition) {
+        removeTableStores();
         try {
             BufferedWriter writer = new BufferedWriter(new FileWriter(Joiner.on(separator).join(
                     new String[]{"db", "test", "testentity", "testentity.json"})));
@@ -196,6 +209,18 @@ public class JsonDBTest {
         assertEntitiesEqual(testEntity, storedEntity);
     }
 
+    //table segments and logs left by earlier tests would otherwise apply to identical data
+    private void removeTableStores() {
+        File[] storeFiles = testEntityFile("").listFiles();
+        assertNotNull(storeFiles);
+        for (File storeFile : storeFiles) {
+            String name = storeFile.getName();
+            if (name.startsWith("testentity.") && !name.equals("testentity.json") && !name.equals("testentity.meta.json")) {
+                assertTrue(storeFile.delete());
+            }
+        }
+    }
+
     private void insertEmptyTestEntityData() {
         insertDataPrecondition("{\"data\": {" +
                 "    \"testEntity\": [" +
@@ -454,6 +479,1270 @@ public class JsonDBTest {
         assertEntitiesEqual(testEntity, storedEntities.get(0));
     }
 
+    @Test
+    public void testKeepDataOfUnknownEntities() throws Exception {
+        insertValidTestEntityMetadata();
+        insertDataPrecondition("" +
+                "{\"data\": {\n" +
+                "    \"testEntity\": [\n" +
+                "        [2, 10, 123.456, \"abc\", true]\n" +
+                "    ],\n" +
+                "    \"otherEntity\": [[1, \"x\"]]\n" +
+                "}, \"seq\": {\n" +
+                "    \"testEntity\": 2\n" +
+                "}}");
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        db.begin();
+        db.save(new TestEntity(11, 1.5, "def", false));
+        db.end(true);
+
+        String storedData = Files.toString(new File(Joiner.on(separator).join(
+                new String[]{"db", "test", "testentity", "testentity.json"})), Charsets.UTF_8);
+        assertTrue(storedData.contains("\"otherEntity\": [[1, \"x\"]]"));
+
+        db.compact();
+        storedData = Files.toString(new File(Joiner.on(separator).join(
+                new String[]{"db", "test", "testentity", "testentity.json"})), Charsets.UTF_8);
+        assertTrue(storedData.contains("\"otherEntity\":[[1,\"x\"]]"));
+
+        db.begin();
+        assertEquals(db.getAll(TestEntity.class).size(), 2);
+        db.end(false);
+    }
+
+    @Test
+    public void testReloadAfterExternalChange() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        db.begin();
+        assertEquals(db.getAll(TestEntity.class).size(), 1);
+        db.end(false);
+
+        insertDataPrecondition("" +
+                "{\"data\": {\n" +
+                "    \"testEntity\": [\n" +
+                "        [2, 10, 123.456, \"abc\", true],\n" +
+                "        [3, 11, 223.456, \"def\", false]\n" +
+                "    ]\n" +
+                "}, \"seq\": {\n" +
+                "    \"testEntity\": 3\n" +
+                "}}");
+
+        db.begin();
+        assertEquals(db.getAll(TestEntity.class).size(), 2);
+        db.end(false);
+    }
+
+    @Test
+    public void testSeeChangesOfOtherInstance() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB firstDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        JsonDB secondDb = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        secondDb.begin();
+        assertEquals(secondDb.getAll(TestEntity.class).size(), 1);
+        secondDb.end(false);
+
+        firstDb.begin();
+        firstDb.save(new TestEntity(11, 1.5, "def", false));
+        firstDb.end(true);
+
+        secondDb.begin();
+        assertEquals(secondDb.getAll(TestEntity.class).size(), 2);
+        secondDb.end(false);
+    }
+
+    @Test
+    public void testReplayLogOnLoad() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        TestEntity firstEntity = new TestEntity(11, 1.5, "first", false);
+        TestEntity secondEntity = new TestEntity(12, 2.5, "second", true);
+
+        db.begin();
+        db.save(firstEntity);
+        db.end(true);
+
+        db.begin();
+        db.save(secondEntity);
+        db.delete(db.find(2, TestEntity.class));
+        db.end(true);
+
+        String storedData = Files.toString(testEntityFile("testentity.json"), Charsets.UTF_8);
+        assertFalse(storedData.contains("second"));
+
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        List<TestEntity> storedEntities = reloadedDb.getAll(TestEntity.class);
+        reloadedDb.end(false);
+
+        assertEquals(storedEntities.size(), 2);
+        assertEntitiesEqual(firstEntity, storedEntities.get(0));
+        assertEntitiesEqual(secondEntity, storedEntities.get(1));
+    }
+
+    @Test
+    public void testSeeLoggedChangesOfOtherInstance() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB firstDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        JsonDB secondDb = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        firstDb.begin();
+        firstDb.save(new TestEntity(11, 1.5, "def", false));
+        firstDb.end(true);
+
+        secondDb.begin();
+        assertEquals(secondDb.getAll(TestEntity.class).size(), 2);
+        secondDb.end(false);
+
+        firstDb.begin();
+        firstDb.save(new TestEntity(12, 2.5, "ghi", true));
+        firstDb.end(true);
+
+        secondDb.begin();
+        assertEquals(secondDb.getAll(TestEntity.class).size(), 3);
+        secondDb.save(new TestEntity(13, 3.5, "jkl", true));
+        secondDb.end(true);
+
+        firstDb.begin();
+        assertEquals(firstDb.getAll(TestEntity.class).size(), 4);
+        firstDb.end(false);
+    }
+
+    @Test
+    public void testDiscardLogOfReplacedSnapshot() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        for (int i = 0; i < 2; i++) {
+            db.begin();
+            db.save(randomEntity());
+            db.end(true);
+        }
+
+        insertSingleEntityPrecondition();
+
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        assertEquals(reloadedDb.getAll(TestEntity.class).size(), 1);
+        reloadedDb.end(false);
+    }
+
+    @Test
+    public void testIgnoreTornLogRecord() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        for (int i = 0; i < 2; i++) {
+            db.begin();
+            db.save(randomEntity());
+            db.end(true);
+        }
+
+        Files.append("{\"ops\":[[\"put\",\"testEntity\",[9,", testEntityFile("testentity.testEntity.log"), Charsets.UTF_8);
+
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        assertEquals(reloadedDb.getAll(TestEntity.class).size(), 3);
+        reloadedDb.save(randomEntity());
+        reloadedDb.end(true);
+
+        JsonDB checkDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        checkDb.begin();
+        assertEquals(checkDb.getAll(TestEntity.class).size(), 4);
+        checkDb.end(false);
+    }
+
+    @Test
+    public void testReadOnlySessionDoesNotWrite() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+        String snapshot = Files.toString(testEntityFile("testentity.json"), Charsets.UTF_8);
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        assertEquals(db.getAll(TestEntity.class).size(), 1);
+        db.end(true);
+
+        assertEquals(Files.toString(testEntityFile("testentity.json"), Charsets.UTF_8), snapshot);
+        assertFalse(testEntityFile("testentity.testEntity.json").exists());
+        assertFalse(testEntityFile("testentity.testEntity.log").exists());
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        JsonDB otherDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        List<TestEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            entities.add(randomEntity());
+        }
+        db.begin();
+        db.saveAll(entities);
+        db.end(true);
+        db.begin();
+        db.save(randomEntity());
+        db.end(true);
+        assertTrue(testEntityFile("testentity.testEntity.json").exists());
+        assertEquals(Files.readLines(testEntityFile("testentity.testEntity.log"), Charsets.UTF_8).size(), 2);
+
+        db.compact();
+
+        assertFalse(testEntityFile("testentity.testEntity.json").exists());
+        List<String> logLines = Files.readLines(testEntityFile("testentity.testEntity.log"), Charsets.UTF_8);
+        assertEquals(logLines.size(), 1);
+        //the header names the snapshot by its exact length
+        assertTrue(logLines.get(0).endsWith("\"length\":" + testEntityFile("testentity.json").length() + "}"));
+        String snapshot = Files.toString(testEntityFile("testentity.json"), Charsets.UTF_8);
+        assertTrue(snapshot.contains("\"checkpoint\""));
+        assertTrue(snapshot.contains(entities.get(1999).getStringField()));
+
+        db.compact();
+        assertEquals(Files.toString(testEntityFile("testentity.json"), Charsets.UTF_8), snapshot);
+
+        db.begin();
+        assertEquals(db.count(TestEntity.class), 2002);
+        db.save(randomEntity());
+        db.end(true);
+
+        otherDb.begin();
+        assertEquals(otherDb.count(TestEntity.class), 2003);
+        otherDb.end(false);
+
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        assertEquals(reloadedDb.count(TestEntity.class), 2003);
+        assertEntitiesEqual(reloadedDb.find(entities.get(0).getIdField(), TestEntity.class), entities.get(0));
+        reloadedDb.end(false);
+    }
+
+    @Test
+    public void testCommitDoesNotRewriteSnapshot() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        db.end(false);
+        String snapshot = Files.toString(testEntityFile("testentity.json"), Charsets.UTF_8);
+
+        db.begin();
+        db.save(randomEntity());
+        db.end(true);
+
+        assertEquals(Files.toString(testEntityFile("testentity.json"), Charsets.UTF_8), snapshot);
+        assertTrue(testEntityFile("testentity.testEntity.log").exists());
+
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        assertEquals(reloadedDb.getAll(TestEntity.class).size(), 2);
+        reloadedDb.end(false);
+    }
+
+    @Test
+    public void testCommitOnlyLogsChangedRecords() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        TestEntity entity = randomEntity();
+        db.save(entity);
+        db.end(true);
+        File logFile = testEntityFile("testentity.testEntity.log");
+        long logSize = logFile.length();
+
+        db.begin();
+        db.save(db.find(entity.getIdField(), TestEntity.class));
+        db.end(true);
+        assertEquals(logFile.length(), logSize);
+
+        db.begin();
+        entity.setIntegerField(1);
+        db.save(entity);
+        entity.setIntegerField(2);
+        db.save(entity);
+        db.end(true);
+        assertEquals(Files.readLines(logFile, Charsets.UTF_8).size(), 3);
+
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        assertEquals(reloadedDb.find(entity.getIdField(), TestEntity.class).getIntegerField(), (Integer) 2);
+        reloadedDb.end(false);
+    }
+
+    @Test
+    public void testSaveAll() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        List<TestEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            entities.add(randomEntity());
+        }
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        db.saveAll(entities);
+        db.end(true);
+
+        for (int i = 0; i < entities.size(); i++) {
+            assertEquals(entities.get(i).getIdField(), (Integer) (i + 3));
+        }
+
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        assertEquals(reloadedDb.getAll(TestEntity.class).size(), 101);
+        assertEntitiesEqual(reloadedDb.find(102, TestEntity.class), entities.get(99));
+        reloadedDb.save(randomEntity());
+        assertNotNull(reloadedDb.find(103, TestEntity.class));
+        reloadedDb.end(false);
+    }
+
+    @Test
+    public void testDeleteAll() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        List<TestEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            entities.add(randomEntity());
+        }
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        db.saveAll(entities);
+        db.end(true);
+
+        db.begin();
+        db.deleteAll(entities.subList(0, 5));
+        db.end(true);
+
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        assertEquals(reloadedDb.getAll(TestEntity.class).size(), 6);
+        assertNull(reloadedDb.find(entities.get(0).getIdField(), TestEntity.class));
+        reloadedDb.end(false);
+    }
+
+    @Test
+    public void testSaveAllNewAndExisting() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        TestEntity existing = db.find(2, TestEntity.class);
+        existing.setStringField("changed");
+        TestEntity first = randomEntity();
+        TestEntity second = randomEntity();
+        db.saveAll(Arrays.asList(first, existing, second));
+        db.end(true);
+
+        assertEquals(first.getIdField(), (Integer) 3);
+        assertEquals(existing.getIdField(), (Integer) 2);
+        assertEquals(second.getIdField(), (Integer) 4);
+
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        assertEquals(reloadedDb.getAll(TestEntity.class).size(), 3);
+        assertEquals(reloadedDb.find(2, TestEntity.class).getStringField(), "changed");
+        assertEntitiesEqual(reloadedDb.find(3, TestEntity.class), first);
+        assertEntitiesEqual(reloadedDb.find(4, TestEntity.class), second);
+        reloadedDb.save(randomEntity());
+        assertNotNull(reloadedDb.find(5, TestEntity.class));
+        reloadedDb.end(false);
+    }
+
+    @Test
+    public void testSaveAllEntityClasses() throws Exception {
+        insertParentChildMetadata();
+        insertParentChildData();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        TestEntity parent = randomEntity();
+        TestChildEntity firstChild = new TestChildEntity(2, "first");
+        TestChildEntity secondChild = new TestChildEntity(2, "second");
+        db.saveAll(Arrays.<Object>asList(firstChild, parent, secondChild));
+        db.end(true);
+
+        assertEquals(parent.getIdField(), (Integer) 3);
+        assertEquals(firstChild.getIdField(), (Integer) 6);
+        assertEquals(secondChild.getIdField(), (Integer) 7);
+
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        assertEquals(reloadedDb.getAll(TestEntity.class).size(), 2);
+        assertEquals(reloadedDb.getAll(TestChildEntity.class).size(), 3);
+        assertEntitiesEqual(reloadedDb.find(3, TestEntity.class), parent);
+        assertEquals(reloadedDb.find(6, TestChildEntity.class).getName(), "first");
+        assertEquals(reloadedDb.find(7, TestChildEntity.class).getName(), "second");
+        reloadedDb.end(false);
+    }
+
+    @Test
+    public void testDeleteAllEntityClasses() throws Exception {
+        insertParentChildMetadata();
+        insertParentChildData();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        TestEntity parent = db.find(2, TestEntity.class);
+        TestChildEntity child = db.find(5, TestChildEntity.class);
+        TestEntity notSaved = randomEntity();
+        db.deleteAll(Arrays.<Object>asList(child, notSaved, parent));
+        db.end(true);
+
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        assertTrue(reloadedDb.getAll(TestEntity.class).isEmpty());
+        assertTrue(reloadedDb.getAll(TestChildEntity.class).isEmpty());
+        reloadedDb.end(false);
+    }
+
+    private void insertParentChildMetadata() {
+        insertMetadataPrecondition("{\n" +
+                "    \"entities\": [" +
+                "        {" +
+                "            \"name\": \"testEntity\"," +
+                "            \"columns\": [" +
+                "                {" +
+                "                    \"name\": \"idField\"," +
+                "                    \"type\": \"int\"," +
+                "                    \"id\": true" +
+                "                }," +
+                "                {" +
+                "                    \"name\": \"integerField\"," +
+                "                    \"type\": \"int\"" +
+                "                }," +
+                "                {" +
+                "                    \"name\": \"doubleField\"," +
+                "                    \"type\": \"decimal\"" +
+                "                }," +
+                "                {" +
+                "                    \"name\": \"stringField\"," +
+                "                    \"type\": \"string\"" +
+                "                }," +
+                "                {" +
+                "                    \"name\": \"booleanField\"," +
+                "                    \"type\": \"boolean\"" +
+                "                }" +
+                "            ]" +
+                "        }," +
+                "        {" +
+                "            \"name\": \"testChildEntity\"," +
+                "            \"columns\": [" +
+                "                {" +
+                "                    \"name\": \"idField\"," +
+                "                    \"type\": \"int\"," +
+                "                    \"id\": true" +
+                "                }," +
+                "                {" +
+                "                    \"name\": \"parentId\"," +
+                "                    \"type\": \"int\"" +
+                "                }," +
+                "                {" +
+                "                    \"name\": \"name\"," +
+                "                    \"type\": \"string\"" +
+                "                }" +
+                "            ]" +
+                "        }" +
+                "    ]" +
+                "}");
+    }
+
+    private void insertParentChildData() {
+        insertDataPrecondition("" +
+                "{\"data\": {\n" +
+                "    \"testEntity\": [\n" +
+                "        [2, 10, 123.456, \"abc\", true]\n" +
+                "    ],\n" +
+                "    \"testChildEntity\": [\n" +
+                "        [5, 2, \"child\"]\n" +
+                "    ]\n" +
+                "}, \"seq\": {\n" +
+                "    \"testEntity\": 2,\n" +
+                "    \"testChildEntity\": 5\n" +
+                "}}");
+    }
+
+    @Test
+    public void testIterate() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        TestEntity testEntity = randomEntity();
+        db.save(testEntity);
+
+        Iterator<TestEntity> entities = db.iterate(TestEntity.class);
+        assertEquals(entities.next().getIdField(), (Integer) 2);
+        assertEntitiesEqual(testEntity, entities.next());
+        assertFalse(entities.hasNext());
+        db.end(true);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testIterateModifiedTable() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        try {
+            db.save(randomEntity());
+            Iterator<TestEntity> entities = db.iterate(TestEntity.class);
+            db.save(randomEntity());
+            entities.next();
+        } finally {
+            db.end(false);
+        }
+    }
+
+    @Test
+    public void testIteratorKeepsItsSnapshot() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        Iterator<TestEntity> entities = db.iterate(TestEntity.class);
+        db.end(false);
+
+        for (int i = 0; i < 3; i++) {
+            db.begin();
+            db.save(randomEntity());
+            db.end(true);
+        }
+
+        assertEquals(entities.next().getIdField(), (Integer) 2);
+        assertFalse(entities.hasNext());
+
+        db.begin();
+        assertEquals(db.getAll(TestEntity.class).size(), 4);
+        db.end(false);
+    }
+
+    @Test
+    public void testChangeListener() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        final List<Class<?>> changes = Collections.synchronizedList(new ArrayList<Class<?>>());
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        db.getAll(TestEntity.class);
+        db.end(false);
+        db.addChangeListener(new ChangeListener() {
+            @Override
+            public void changed(Class<?> entityClass) {
+                changes.add(entityClass);
+            }
+        });
+
+        db.begin();
+        db.save(randomEntity());
+        db.end(true);
+        assertEquals(changes.size(), 1);
+        assertEquals(changes.get(0), TestEntity.class);
+
+        db.begin();
+        db.getAll(TestEntity.class);
+        db.end(true);
+        assertEquals(changes.size(), 1);
+
+        JsonDB otherDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        otherDb.begin();
+        otherDb.save(randomEntity());
+        otherDb.end(true);
+        assertEquals(changes.size(), 1);
+
+        db.begin();
+        db.end(false);
+        assertEquals(changes.size(), 2);
+        assertEquals(changes.get(1), TestEntity.class);
+
+        db.begin();
+        db.end(false);
+        assertEquals(changes.size(), 2);
+    }
+
+    @Test
+    public void testConcurrentCommits() throws Exception {
+        insertValidTestEntityMetadata();
+        insertEmptyTestEntityData();
+
+        final JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        final int threadCount = 8;
+        final int commitsPerThread = 25;
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < commitsPerThread; j++) {
+                            db.begin();
+                            db.save(randomEntity());
+                            db.end(true);
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        List<TestEntity> storedEntities = reloadedDb.getAll(TestEntity.class);
+        reloadedDb.end(false);
+
+        assertEquals(storedEntities.size(), threadCount * commitsPerThread);
+        Set<Integer> ids = new HashSet<>();
+        for (TestEntity storedEntity : storedEntities) {
+            ids.add(storedEntity.getIdField());
+        }
+        assertEquals(ids.size(), threadCount * commitsPerThread);
+    }
+
+    @Test
+    public void testConcurrentCommitsOfTwoInstances() throws Exception {
+        insertValidTestEntityMetadata();
+        insertEmptyTestEntityData();
+
+        final JsonDB[] dbs = {JsonDBImpl.fromFile("db\\test\\testentity"), JsonDBImpl.fromFile("db\\test\\testentity")};
+        final int threadCount = 4;
+        final int commitsPerThread = 25;
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < threadCount; i++) {
+            final JsonDB db = dbs[i % dbs.length];
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < commitsPerThread; j++) {
+                            db.begin();
+                            db.save(randomEntity());
+                            db.end(true);
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+
+        //both instances append to the same log, none of their records may overwrite another one
+        JsonDB reloadedDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        reloadedDb.begin();
+        List<TestEntity> storedEntities = reloadedDb.getAll(TestEntity.class);
+        reloadedDb.end(false);
+
+        assertEquals(storedEntities.size(), threadCount * commitsPerThread);
+        Set<Integer> ids = new HashSet<>();
+        for (TestEntity storedEntity : storedEntities) {
+            ids.add(storedEntity.getIdField());
+        }
+        assertEquals(ids.size(), threadCount * commitsPerThread);
+    }
+
+    @Test(timeout = 10000)
+    public void testReadersDoNotWaitForWriter() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        final JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        final CountDownLatch saved = new CountDownLatch(1);
+        final CountDownLatch read = new CountDownLatch(1);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        db.begin();
+        assertEquals(db.getAll(TestEntity.class).size(), 1);
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    db.begin();
+                    db.save(new TestEntity(11, 1.5, "def", false));
+                    saved.countDown();
+                    read.await();
+                    db.end(true);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }
+        });
+        writer.start();
+        saved.await();
+
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    db.begin();
+                    assertEquals(db.getAll(TestEntity.class).size(), 1);
+                    db.end(false);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }
+        });
+        reader.start();
+        reader.join();
+
+        read.countDown();
+        writer.join();
+        assertTrue(failures.toString(), failures.isEmpty());
+
+        assertEquals(db.getAll(TestEntity.class).size(), 1);
+        db.end(false);
+
+        db.begin();
+        assertEquals(db.getAll(TestEntity.class).size(), 2);
+        db.end(false);
+    }
+
+    @Test(timeout = 10000)
+    public void testReadersDoNotWaitForWriterWhileReloading() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        final JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        final CountDownLatch begun = new CountDownLatch(1);
+        final CountDownLatch compacted = new CountDownLatch(1);
+        final CountDownLatch saved = new CountDownLatch(1);
+        final CountDownLatch read = new CountDownLatch(1);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    db.begin();
+                    begun.countDown();
+                    compacted.await();
+                    //the table no longer matches the loaded snapshot, so the writer leaves nothing usable loaded
+                    db.save(new TestEntity(11, 1.5, "def", false));
+                    saved.countDown();
+                    read.await();
+                    db.end(false);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }
+        });
+        writer.start();
+        begun.await();
+
+        JsonDB otherDb = JsonDBImpl.fromFile("db\\test\\testentity");
+        otherDb.begin();
+        otherDb.save(new TestEntity(12, 2.5, "ghi", true));
+        otherDb.end(true);
+        otherDb.compact();
+        compacted.countDown();
+        saved.await();
+
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    db.begin();
+                    assertEquals(db.getAll(TestEntity.class).size(), 1);
+                    db.end(false);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }
+        });
+        reader.start();
+        reader.join();
+
+        read.countDown();
+        writer.join();
+        assertTrue(failures.toString(), failures.isEmpty());
+
+        db.begin();
+        assertEquals(db.getAll(TestEntity.class).size(), 2);
+        db.end(false);
+    }
+
+    private File testEntityFile(String name) {
+        return new File(Joiner.on(separator).join(new String[]{"db", "test", "testentity", name}));
+    }
+
+    @Test(expected = DBParseException.class)
+    public void testDuplicateKeys() throws Exception {
+        insertValidTestEntityMetadata();
+        insertDataPrecondition("" +
+                "{\"data\": {\n" +
+                "    \"testEntity\": [\n" +
+                "        [2, 10, 123.456, \"abc\", true],\n" +
+                "        [2, 11, 223.456, \"def\", false]\n" +
+                "    ]\n" +
+                "}, \"seq\": {\n" +
+                "    \"testEntity\": 2\n" +
+                "}}");
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        db.begin();
+    }
+
+    @Test
+    public void testUpdateKeepsOtherEntities() throws Exception {
+        insertValidTestEntityMetadata();
+        insertEmptyTestEntityData();
+
+        List<TestEntity> testEntities = createRandomEntities(50);
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        db.begin();
+        for (TestEntity testEntity : testEntities) {
+            db.save(testEntity);
+        }
+        db.end(true);
+
+        db.begin();
+        TestEntity updatedEntity = testEntities.get(25);
+        updatedEntity.setStringField("updated");
+        db.save(updatedEntity);
+        db.delete(testEntities.get(0));
+        db.end(true);
+
+        db.begin();
+        assertEquals(db.getAll(TestEntity.class).size(), 49);
+        assertNull(db.find(testEntities.get(0).getIdField(), TestEntity.class));
+        assertEquals(db.find(updatedEntity.getIdField(), TestEntity.class).getStringField(), "updated");
+        db.end(false);
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        insertValidTestEntityMetadata();
+        insertEmptyTestEntityData();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        db.begin();
+        db.save(new TestEntity(10, 1.5, "abc", true));
+        db.save(new TestEntity(20, 2.5, "def", false));
+        db.save(new TestEntity(30, 3.5, "ghi", true));
+        db.save(new TestEntity(40, null, "jkl", true));
+        db.end(true);
+
+        db.begin();
+        List<TestEntity> found = db.query(TestEntity.class)
+                .where("doubleField", Operator.GT, 2)
+                .orderByDescending("integerField")
+                .list();
+        assertEquals(found.size(), 2);
+        assertEquals(found.get(0).getIntegerField(), (Integer) 30);
+        assertEquals(found.get(1).getIntegerField(), (Integer) 20);
+
+        found = db.query(TestEntity.class)
+                .where("booleanField", Operator.EQ, true)
+                .where("stringField", Operator.NE, "abc")
+                .orderBy("integerField")
+                .limit(1)
+                .list();
+        assertEquals(found.size(), 1);
+        assertEquals(found.get(0).getIntegerField(), (Integer) 30);
+
+        assertEquals(db.query(TestEntity.class).where("doubleField", Operator.EQ, null).first().getIntegerField(), (Integer) 40);
+        assertEquals(db.query(TestEntity.class).where("idField", Operator.EQ, 3).first().getIntegerField(), (Integer) 20);
+        assertNull(db.query(TestEntity.class).where("idField", Operator.EQ, 9).first());
+
+        Query<TestEntity> query = db.query(TestEntity.class).where("booleanField", Operator.EQ, true);
+        assertNotNull(query.first());
+        assertEquals(query.list().size(), 3);
+        db.end(false);
+    }
+
+    @Test
+    public void testQueryByKeyOrder() throws Exception {
+        insertValidTestEntityMetadata();
+        insertEmptyTestEntityData();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        List<TestEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            entities.add(new TestEntity(i, null, "entity" + i, true));
+        }
+        db.begin();
+        db.saveAll(entities);
+        db.end(true);
+
+        //an update moves the row to a new slot, but must not change its place in key order
+        db.begin();
+        entities.get(0).setStringField("updated");
+        db.save(entities.get(0));
+        db.delete(entities.get(3));
+        db.end(true);
+
+        db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        List<TestEntity> found = db.query(TestEntity.class).orderBy("idField").offset(1).limit(3).list();
+        assertEquals(found.size(), 3);
+        assertEquals(found.get(0).getIntegerField(), (Integer) 1);
+        assertEquals(found.get(1).getIntegerField(), (Integer) 2);
+        assertEquals(found.get(2).getIntegerField(), (Integer) 4);
+
+        found = db.query(TestEntity.class).orderByDescending("idField").limit(2).list();
+        assertEquals(found.size(), 2);
+        assertEquals(found.get(0).getIntegerField(), (Integer) 5);
+        assertEquals(found.get(1).getIntegerField(), (Integer) 4);
+
+        found = db.query(TestEntity.class).where("stringField", Operator.NE, "entity5")
+                .orderByDescending("idField").offset(3).list();
+        assertEquals(found.size(), 1);
+        assertEquals(found.get(0).getStringField(), "updated");
+
+        assertEquals(db.query(TestEntity.class).offset(4).count(), 1);
+        assertEquals(db.query(TestEntity.class).orderBy("idField").offset(9).list().size(), 0);
+        assertEquals(db.query(TestEntity.class).where("idField", Operator.NE, null).orderBy("idField").list().size(), 5);
+        db.end(false);
+    }
+
+    @Test
+    public void testGetPage() throws Exception {
+        insertValidTestEntityMetadata();
+        insertEmptyTestEntityData();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        List<TestEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entities.add(new TestEntity(i, null, "entity" + i, i % 2 == 0));
+        }
+        db.begin();
+        db.saveAll(entities);
+        db.end(true);
+
+        db.begin();
+        Page<TestEntity> page = db.getPage(TestEntity.class, 2, null);
+        assertEquals(page.getItems().size(), 2);
+        assertEquals(page.getItems().get(0).getIntegerField(), (Integer) 0);
+        assertEquals(page.getNextKey(), entities.get(1).getIdField());
+
+        page = db.getPage(TestEntity.class, 2, page.getNextKey());
+        assertEquals(page.getItems().get(0).getIntegerField(), (Integer) 2);
+        assertTrue(page.hasNext());
+
+        page = db.getPage(TestEntity.class, 2, page.getNextKey());
+        assertEquals(page.getItems().size(), 1);
+        assertEquals(page.getItems().get(0).getIntegerField(), (Integer) 4);
+        assertFalse(page.hasNext());
+
+        page = db.query(TestEntity.class).where("booleanField", Operator.EQ, true)
+                .orderByDescending("idField").page(1, entities.get(4).getIdField());
+        assertEquals(page.getItems().size(), 1);
+        assertEquals(page.getItems().get(0).getIntegerField(), (Integer) 2);
+        assertTrue(page.hasNext());
+
+        Query<TestEntity> query = db.query(TestEntity.class).where("booleanField", Operator.EQ, false);
+        page = query.page(1, null);
+        assertEquals(page.getItems().get(0).getIntegerField(), (Integer) 1);
+        page = query.page(1, page.getNextKey());
+        assertEquals(page.getItems().get(0).getIntegerField(), (Integer) 3);
+        assertEquals(query.list().size(), 2);
+        db.end(false);
+    }
+
+    @Test(expected = DBParseException.class)
+    public void testGetPageNotOrderedByKey() throws Exception {
+        insertValidTestEntityMetadata();
+        insertEmptyTestEntityData();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        db.begin();
+        db.query(TestEntity.class).orderBy("integerField").page(10, null);
+    }
+
+    @Test
+    public void testQueryIn() throws Exception {
+        insertIndexedTestEntityMetadata("\"hash\"");
+        insertEmptyTestEntityData();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        db.begin();
+        for (int i = 0; i < 10; i++) {
+            db.save(new TestEntity(i % 5, null, Integer.toString(i), null));
+        }
+        db.end(true);
+
+        db.begin();
+        List<TestEntity> found = db.query(TestEntity.class)
+                .where("integerField", Operator.IN, Arrays.asList(1, 3, 7))
+                .list();
+        assertEquals(found.size(), 4);
+        assertEquals(db.query(TestEntity.class).where("idField", Operator.IN, Arrays.asList(2, 4, 50)).count(), 2);
+        assertEquals(db.query(TestEntity.class).where("stringField", Operator.IN, Arrays.asList("1", "9")).count(), 2);
+        db.end(false);
+    }
+
+    @Test
+    public void testQueryProjection() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        TestEntity found = db.query(TestEntity.class).select("stringField").first();
+        db.end(false);
+
+        assertEquals(found.getIdField(), (Integer) 2);
+        assertEquals(found.getStringField(), "abc");
+        assertNull(found.getIntegerField());
+        assertNull(found.getDoubleField());
+        assertNull(found.getBooleanField());
+    }
+
+    @Test
+    public void testAggregates() throws Exception {
+        insertValidTestEntityMetadata();
+        insertEmptyTestEntityData();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        db.begin();
+        db.save(new TestEntity(10, 1.5, "abc", true));
+        db.save(new TestEntity(20, 2.5, "def", false));
+        db.save(new TestEntity(30, 3.5, "ghi", true));
+        db.save(new TestEntity(40, null, "jkl", true));
+        db.end(true);
+
+        db.begin();
+        assertEquals(db.count(TestEntity.class), 4);
+        assertEquals(db.query(TestEntity.class).where("booleanField", Operator.EQ, true).count(), 3);
+
+        Aggregate doubles = db.query(TestEntity.class).aggregate("doubleField");
+        assertEquals(doubles.getCount(), 3);
+        assertEquals(doubles.getSum(), 7.5, 0.0001);
+        assertEquals(doubles.getAverage(), 2.5, 0.0001);
+        assertEquals(doubles.getMin(), 1.5, 0.0001);
+        assertEquals(doubles.getMax(), 3.5, 0.0001);
+
+        Map<Object, Aggregate> groups = db.query(TestEntity.class).groupBy("booleanField", "integerField");
+        assertEquals(groups.size(), 2);
+        assertEquals(groups.get(true).getSum(), 80, 0.0001);
+        assertEquals(groups.get(false).getAverage(), 20, 0.0001);
+
+        assertNull(db.query(TestEntity.class).where("integerField", Operator.GT, 50).aggregate("integerField").getAverage());
+        db.end(false);
+    }
+
+    @Test(expected = DBParseException.class)
+    public void testAggregateNotNumericColumn() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        try {
+            db.query(TestEntity.class).aggregate("stringField");
+        } finally {
+            db.end(false);
+        }
+    }
+
+    @Test
+    public void testJoin() throws Exception {
+        insertValidTestEntityMetadata();
+        insertEmptyTestEntityData();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        db.begin();
+        db.save(new TestEntity(null, 1.5, "first", true));
+        db.save(new TestEntity(2, 2.5, "second", true));
+        db.save(new TestEntity(2, 3.5, "third", false));
+        db.save(new TestEntity(9, 4.5, "fourth", false));
+        db.end(true);
+
+        db.begin();
+        List<Pair<TestEntity, TestEntity>> joined = db.query(TestEntity.class)
+                .where("booleanField", Operator.EQ, false)
+                .orderBy("idField")
+                .join(db.query(TestEntity.class).select("stringField"), "integerField", "idField");
+        db.end(false);
+
+        assertEquals(joined.size(), 2);
+        assertEquals(joined.get(0).getLeft().getStringField(), "third");
+        assertEquals(joined.get(0).getRight().getStringField(), "first");
+        assertNull(joined.get(0).getRight().getDoubleField());
+        assertEquals(joined.get(1).getLeft().getStringField(), "fourth");
+        assertNull(joined.get(1).getRight());
+    }
+
+    @Test
+    public void testQueryBySortedIndex() throws Exception {
+        insertIndexedTestEntityMetadata("\"sorted\"");
+        insertEmptyTestEntityData();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        db.begin();
+        for (int i = 0; i < 10; i++) {
+            db.save(new TestEntity(i, null, null, null));
+        }
+        db.end(true);
+
+        db.begin();
+        List<TestEntity> found = db.query(TestEntity.class)
+                .where("integerField", Operator.GE, 3)
+                .where("integerField", Operator.LT, 6)
+                .list();
+        assertEquals(found.size(), 3);
+        for (int i = 0; i < found.size(); i++) {
+            assertEquals(found.get(i).getIntegerField(), (Integer) (i + 3));
+        }
+        db.end(false);
+    }
+
+    @Test(expected = DBParseException.class)
+    public void testQueryWrongValueType() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+        db.begin();
+        try {
+            db.query(TestEntity.class).where("stringField", Operator.LT, 5).list();
+        } finally {
+            db.end(false);
+        }
+    }
+
+    @Test
+    public void testFindByIndexedColumn() throws Exception {
+        insertIndexedTestEntityMetadata("\"hash\"");
+        insertEmptyTestEntityData();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        TestEntity first = new TestEntity(10, 1.5, "abc", true);
+        TestEntity second = new TestEntity(10, 2.5, "def", false);
+        TestEntity third = new TestEntity(20, 3.5, "ghi", true);
+
+        db.begin();
+        db.save(first);
+        db.save(second);
+        db.save(third);
+        db.end(true);
+
+        db.begin();
+        assertEquals(db.findBy("integerField", 10, TestEntity.class).size(), 2);
+        second.setIntegerField(20);
+        db.save(second);
+        db.delete(third);
+        db.end(true);
+
+        db.begin();
+        List<TestEntity> found = db.findBy("integerField", 10, TestEntity.class);
+        assertEquals(found.size(), 1);
+        assertEntitiesEqual(first, found.get(0));
+        found = db.findBy("integerField", 20, TestEntity.class);
+        assertEquals(found.size(), 1);
+        assertEntitiesEqual(second, found.get(0));
+        assertTrue(db.findBy("integerField", 30, TestEntity.class).isEmpty());
+        db.end(false);
+    }
+
+    @Test
+    public void testFindByNotIndexedColumn() throws Exception {
+        insertValidTestEntityMetadata();
+        insertSingleEntityPrecondition();
+
+        JsonDB db = JsonDBImpl.fromFile("db\\test\\testentity");
+
+        db.begin();
+        assertEquals(db.findBy("stringField", "abc", TestEntity.class).size(), 1);
+        assertEquals(db.findBy("doubleField", 123.456, TestEntity.class).size(), 1);
+        assertTrue(db.findBy("stringField", "def", TestEntity.class).isEmpty());
+        db.end(false);
+    }
+
+    @Test(expected = DBParseException.class)
+    public void testInvalidIndexType() throws Exception {
+        insertIndexedTestEntityMetadata("\"btree\"");
+
+        JsonDBImpl.fromFile("db\\test\\testentity");
+    }
+
+    private void insertIndexedTestEntityMetadata(String indexType) {
+        insertMetadataPrecondition("{\n" +
+                "    \"entities\": [" +
+                "        {" +
+                "            \"name\": \"testEntity\"," +
+                "            \"columns\": [" +
+                "                {" +
+                "                    \"name\": \"idField\"," +
+                "                    \"type\": \"int\"," +
+                "                    \"id\": true" +
+                "                }," +
+                "                {" +
+                "                    \"name\": \"integerField\"," +
+                "                    \"type\": \"int\"," +
+                "                    \"index\": " + indexType +
+                "                }," +
+                "                {" +
+                "                    \"name\": \"doubleField\"," +
+                "                    \"type\": \"decimal\"" +
+                "                }," +
+                "                {" +
+                "                    \"name\": \"stringField\"," +
+                "                    \"type\": \"string\"" +
+                "                }," +
+                "                {" +
+                "                    \"name\": \"booleanField\"," +
+                "                    \"type\": \"boolean\"" +
+                "                }" +
+                "            ]" +
+                "        }" +
+                "    ]" +
+                "}");
+    }
+
     private void insertSingleEntityPrecondition() {
         insertDataPrecondition("" +
                 "{\"data\": {\n" +
@@ -3,10 +3,15 @@ package edu.css.db;
 import edu.css.model.Student;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Catalin Dumitru
@@ -90,4 +95,53 @@ public class StudentTest {
         assertEquals(db.getAll(Student.class).size(), 5);
         db.end(true);
     }
+
+    @Test(timeout = 10000)
+    public void testConcurrentUpdateOfReadStudent() throws Exception {
+        final JsonDB db = JsonDBImpl.fromFile("db\\test\\student");
+        final CountDownLatch read = new CountDownLatch(1);
+        final CountDownLatch updated = new CountDownLatch(1);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        Thread staleWriter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                db.begin();
+                try {
+                    Student student = db.find(2, Student.class);
+                    read.countDown();
+                    updated.await();
+
+                    student.setName("Michael");
+                    db.save(student);
+                    fail("saving a student read before another update must fail");
+                } catch (DBParseException e) {
+                    //the update made after the read must not be overwritten
+                } catch (Throwable e) {
+                    failures.add(e);
+                } finally {
+                    db.end(false);
+                }
+            }
+        });
+        staleWriter.start();
+        read.await();
+
+        db.begin();
+        Student student = db.find(2, Student.class);
+        student.setAverage(9.5);
+        db.save(student);
+        db.end(true);
+        updated.countDown();
+        staleWriter.join();
+        assertTrue(failures.toString(), failures.isEmpty());
+
+        db.begin();
+        Student savedStudent = db.find(2, Student.class);
+        assertEquals(savedStudent.getName(), "Mike");
+        assertEquals(savedStudent.getAverage(), 9.5, 0.001);
+        savedStudent.setAverage(6.1);
+        db.save(savedStudent);
+        db.end(true);
+    }
 }
@@ -0,0 +1,161 @@
+package edu.css.db;
+
+import edu.css.json.JsonReader;
+import edu.css.json.JsonWriter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static junit.framework.Assert.*;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public class TableTest {
+
+    private EntityMeta meta;
+
+    @Before
+    public void setUp() throws Exception {
+        Map<String, ColumnMeta> columns = newHashMap();
+        columns.put("id", new ColumnMeta("id", "int", true, ColumnParserBuilder.INT_PARSER, null));
+        columns.put("name", new ColumnMeta("name", "string", false, ColumnParserBuilder.STRING_PARSER, null));
+        columns.put("grade", new ColumnMeta("grade", "decimal", false, ColumnParserBuilder.DECIMAL_PARSER, null));
+        columns.put("passed", new ColumnMeta("passed", "boolean", false, ColumnParserBuilder.BOOLEAN_PARSER, null));
+        meta = new EntityMeta("testEntity", columns, Arrays.asList("id", "name", "grade", "passed"));
+    }
+
+    @Test
+    public void testReadWriteNulls() throws Exception {
+        String rows = "[[1,\"a\",9.5,true],[2,null,null,null],[3,\"c\",4.0,false]]";
+        Table table = new Table(meta);
+        table.read(new JsonReader(new StringReader(rows)));
+
+        assertTrue(Arrays.equals(table.find(2), new Object[]{2, null, null, null}));
+        assertEquals(write(table), rows);
+    }
+
+    @Test
+    public void testMissingTrailingValues() throws Exception {
+        Table table = new Table(meta);
+        table.read(new JsonReader(new StringReader("[[1,\"a\"]]")));
+
+        assertTrue(Arrays.equals(table.find(1), new Object[]{1, "a", null, null}));
+    }
+
+    @Test
+    public void testDeleteAndReinsertKeepsOrder() throws Exception {
+        Table table = new Table(meta);
+        List<Integer> expectedKeys = newArrayList();
+
+        for (int i = 1; i <= 1000; i++) {
+            table.upsert(new Object[]{i, "name" + i, (double) i, i % 2 == 0});
+            expectedKeys.add(i);
+        }
+        for (int i = 1; i <= 1000; i += 3) {
+            assertTrue(table.delete(i));
+            expectedKeys.remove(Integer.valueOf(i));
+        }
+        for (int i = 2; i <= 1000; i += 7) {
+            if (table.find(i) != null) {
+                table.upsert(new Object[]{i, "updated" + i, null, null});
+                expectedKeys.remove(Integer.valueOf(i));
+                expectedKeys.add(i);
+            }
+        }
+        for (int i = 1001; i <= 1500; i++) {
+            table.upsert(new Object[]{i, null, 1.5, true});
+            expectedKeys.add(i);
+        }
+
+        List<Integer> keys = newArrayList();
+        for (Object[] row : table.rows()) {
+            keys.add((Integer) row[0]);
+            assertTrue(Arrays.equals(table.find(row[0]), row));
+        }
+        assertEquals(keys, expectedKeys);
+        assertEquals(table.rows().size(), expectedKeys.size());
+        assertNull(table.find(1));
+        assertFalse(table.delete(1));
+        assertEquals(table.find(9)[1], "updated9");
+    }
+
+    @Test
+    public void testCopyIsIndependent() throws Exception {
+        Table table = new Table(meta);
+        table.upsert(new Object[]{1, "a", 1.0, true});
+
+        Table copy = new Table(table);
+        copy.upsert(new Object[]{1, "b", 2.0, false});
+        copy.delete(1);
+
+        assertTrue(Arrays.equals(table.find(1), new Object[]{1, "a", 1.0, true}));
+        assertNull(copy.find(1));
+    }
+
+    @Test
+    public void testApplyLogRecord() throws Exception {
+        Table table = new Table(meta);
+        table.upsert(new Object[]{1, "a", 1.0, true});
+        table.upsert(new Object[]{2, "b", 2.0, false});
+
+        LogRecord record = new LogRecord();
+        record.put("testEntity", 1, new Object[]{1, "c", 3.0, true});
+        record.delete("testEntity", 2);
+        record.put("testEntity", 3, new Object[]{3, "d", null, null});
+        table.apply(record);
+
+        assertEquals(table.find(1)[1], "c");
+        assertNull(table.find(2));
+        assertEquals(table.find(3)[1], "d");
+    }
+
+    @Test
+    public void testInUseWhilePinnedOrShared() throws Exception {
+        Table table = new Table(meta);
+        assertFalse(table.isInUse());
+
+        table.pin();
+        assertTrue(table.isInUse());
+        table.unpin();
+        assertFalse(table.isInUse());
+
+        table.share();
+        assertTrue(table.isInUse());
+    }
+
+    @Test
+    public void testFindByScan() throws Exception {
+        Table table = new Table(meta);
+        table.upsert(new Object[]{1, "a", 1.0, true});
+        table.upsert(new Object[]{2, "b", null, false});
+        table.upsert(new Object[]{3, "a", 1.0, null});
+
+        assertEquals(table.findBy(1, "a").size(), 2);
+        assertEquals(table.findBy(2, 1.0).size(), 2);
+        assertEquals(table.findBy(2, null).size(), 1);
+        assertEquals(table.findBy(3, false).size(), 1);
+        assertEquals(table.findBy(3, null).size(), 1);
+    }
+
+    @Test(expected = DBParseException.class)
+    public void testMissingKey() throws Exception {
+        new Table(meta).read(new JsonReader(new StringReader("[[null,\"a\",1.0,true]]")));
+    }
+
+    private String write(Table table) throws Exception {
+        StringWriter stringWriter = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(stringWriter)) {
+            table.write(writer);
+        }
+        return stringWriter.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package edu.css.db;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+@Entity
+public class TestChildEntity {
+    @Id
+    @Column
+    private Integer idField;
+
+    @Column
+    private Integer parentId;
+
+    @Column
+    private String name;
+
+    public TestChildEntity() {
+    }
+
+    public TestChildEntity(Integer parentId, String name) {
+        this.parentId = parentId;
+        this.name = name;
+    }
+
+    public Integer getIdField() {
+        return idField;
+    }
+
+    public Integer getParentId() {
+        return parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
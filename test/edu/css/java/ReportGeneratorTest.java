@@ -1,16 +1,21 @@
 package edu.css.java;
 
+import edu.css.db.Pair;
 import edu.css.model.Exam;
 import edu.css.model.Student;
 import edu.css.operations.ExamDAO;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import static junit.framework.Assert.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -28,8 +33,14 @@ public class ReportGeneratorTest {
         //random file in tmp directory
         String outputPath = new File(System.getProperty("java.io.tmpdir"), "report_" + System.currentTimeMillis() + ".pdf").toString() ;
 
-        Student student1 = new Student("Dinu", 8.3);
-        Student student2 = new Student("Andrew", 7.6);
+        Student student1 = mock(Student.class);
+        when(student1.getId()).thenReturn(1);
+        when(student1.getName()).thenReturn("Dinu");
+        when(student1.getAverage()).thenReturn(8.3);
+        Student student2 = mock(Student.class);
+        when(student2.getId()).thenReturn(2);
+        when(student2.getName()).thenReturn("Andrew");
+        when(student2.getAverage()).thenReturn(7.6);
         Exam exam1 = new Exam(6.5, 1);
         Exam exam2 = new Exam(6.5, 2);
 
@@ -37,9 +48,12 @@ public class ReportGeneratorTest {
         studentList.add(student1);
         studentList.add(student2);
 
+        Map<Integer, Exam> exams = new HashMap<>();
+        exams.put(1, exam1);
+        exams.put(2, exam2);
+
         ExamDAO examDAO = mock(ExamDAO.class);
-        when(examDAO.getExamForStudent(student1)).thenReturn(exam1);
-        when(examDAO.getExamForStudent(student2)).thenReturn(exam2);
+        when(examDAO.getExamsForStudents(studentList)).thenReturn(exams);
 
         ReportGenerator reportGenerator = new ReportGenerator(studentList, examDAO, outputPath);
 
@@ -50,5 +64,26 @@ public class ReportGeneratorTest {
         assertTrue(generatedFile.exists());
         assertTrue(generatedFile.getTotalSpace() > 0);
         assertTrue(generatedFile.toString().endsWith(".pdf"));
+        verify(examDAO).getExamsForStudents(studentList);
+        verify(examDAO, never()).getExamForStudent(student1);
+    }
+
+    @Test
+    public void generateReportFromResultsTest()
+    {
+        String outputPath = new File(System.getProperty("java.io.tmpdir"), "report_" + System.currentTimeMillis()).toString() ;
+
+        List<Pair<Student, Exam>> results = new LinkedList<>();
+        results.add(new Pair<>(new Student("Dinu", 8.3), new Exam(6.5, 1)));
+        results.add(new Pair<>(new Student("Andrew", 7.6), new Exam(6.5, 2)));
+
+        ReportGenerator reportGenerator = new ReportGenerator(results, outputPath);
+
+        reportGenerator.generate();
+
+        File generatedFile = new File(reportGenerator.getOutputFileName());
+
+        assertTrue(generatedFile.exists());
+        assertTrue(generatedFile.toString().endsWith(".pdf"));
     }
 }
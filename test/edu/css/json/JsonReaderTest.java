@@ -0,0 +1,153 @@
+package edu.css.json;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+import static edu.css.json.JsonParser.*;
+import static org.junit.Assert.*;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public class JsonReaderTest {
+
+    @Test
+    public void testReadTokens() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("" +
+                "{\"name\": \"abc\", \"values\": [1, -2, 3.5, true, null], \"empty\": {}}"));
+
+        reader.beginObject();
+        assertEquals(reader.nextName(), "name");
+        assertEquals(reader.nextString(), "abc");
+        assertEquals(reader.nextName(), "values");
+
+        reader.beginArray();
+        assertEquals(reader.peek(), JsonToken.INT);
+        assertEquals(reader.nextInt(), 1);
+        assertEquals(reader.nextInt(), -2);
+        assertEquals(reader.peek(), JsonToken.DOUBLE);
+        assertEquals(reader.nextDouble(), 3.5, 0.001);
+        assertTrue(reader.nextBoolean());
+        reader.nextNull();
+        assertFalse(reader.hasNext());
+        reader.endArray();
+
+        assertEquals(reader.nextName(), "empty");
+        reader.beginObject();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+
+        reader.endObject();
+        assertEquals(reader.peek(), JsonToken.END_DOCUMENT);
+    }
+
+    @Test
+    public void testReadIntAsDouble() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("[10]"));
+
+        reader.beginArray();
+        assertEquals(reader.nextDouble(), 10d, 0.001);
+        reader.endArray();
+    }
+
+    @Test
+    public void testReadLong() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("[3000000000, -9223372036854775808, 9223372036854775807]"));
+
+        reader.beginArray();
+        assertEquals(reader.nextLong(), 3000000000L);
+        assertEquals(reader.nextLong(), Long.MIN_VALUE);
+        assertEquals(reader.nextLong(), Long.MAX_VALUE);
+        reader.endArray();
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testIntOutOfRange() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("[3000000000]"));
+
+        reader.beginArray();
+        reader.nextInt();
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testLongOutOfRange() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("[9223372036854775808]"));
+
+        reader.beginArray();
+        reader.nextLong();
+    }
+
+    @Test
+    public void testSkipValue() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("" +
+                "{\"skipped\": {\"a\": [1, {\"b\": \"c\\\"]\"}], \"d\": null}, \"kept\": 5}"));
+
+        reader.beginObject();
+        assertEquals(reader.nextName(), "skipped");
+        reader.skipValue();
+        assertEquals(reader.nextName(), "kept");
+        assertEquals(reader.nextInt(), 5);
+        reader.endObject();
+    }
+
+    @Test
+    public void testReadAcrossBufferBoundaries() throws Exception {
+        String longValue = Strings.repeat("abcdefgh", 3000);
+        JsonReader reader = new JsonReader(new ByteArrayInputStream(
+                ("[\"" + longValue + "\", \"a\\nb\", 123456]").getBytes(StandardCharsets.UTF_8)));
+
+        reader.beginArray();
+        assertEquals(reader.nextString(), longValue);
+        assertEquals(reader.nextString(), "a\nb");
+        assertEquals(reader.nextInt(), 123456);
+        reader.endArray();
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testUnexpectedToken() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("[\"abc\"]"));
+
+        reader.beginArray();
+        reader.nextInt();
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testMalformedObject() throws Exception {
+        new JsonParser().parse(new StringReader("{a: \"abc\""));
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testEmptyReader() throws Exception {
+        new JsonParser().parse(new StringReader(""));
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testTruncatedArray() throws Exception {
+        new JsonParser().parse(new StringReader("["));
+    }
+
+    @Test
+    public void testParseReaderMatchesParseString() throws Exception {
+        Scanner scanner = new Scanner(new File("db/test/student/student.json"));
+        scanner.useDelimiter("\\Z");
+        String input = scanner.next();
+
+        try (Reader reader = new InputStreamReader(new FileInputStream("db/test/student/student.json"),
+                StandardCharsets.UTF_8)) {
+            ObjectValue streamed = new JsonParser().parse(reader);
+            ObjectValue parsed = new JsonParser().parse(input);
+
+            assertEquals(streamed.toString(), parsed.toString());
+        }
+    }
+}
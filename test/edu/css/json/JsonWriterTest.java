@@ -0,0 +1,71 @@
+package edu.css.json;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static edu.css.json.JsonParser.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public class JsonWriterTest {
+
+    @Test
+    public void testWriteEvents() throws Exception {
+        StringWriter stringWriter = new StringWriter();
+
+        try (JsonWriter writer = new JsonWriter(stringWriter)) {
+            writer.beginObject()
+                    .name("name").value("abc")
+                    .name("values").beginArray()
+                    .value(1).value(3000000000L).value(2.5).value(true).nullValue().value((String) null)
+                    .endArray()
+                    .name("empty").beginObject().endObject()
+                    .endObject();
+        }
+
+        assertEquals(stringWriter.toString(), "{\"name\":\"abc\",\"values\":[1,3000000000,2.5,true,null,null],\"empty\":{}}");
+    }
+
+    @Test
+    public void testWriteEscapedString() throws Exception {
+        StringWriter stringWriter = new StringWriter();
+
+        try (JsonWriter writer = new JsonWriter(stringWriter)) {
+            writer.value("a\"b\\c\nd\u0001");
+        }
+
+        assertEquals(stringWriter.toString(), "\"a\\\"b\\\\c\\nd\\u0001\"");
+        assertEquals(new JsonParser().<StringValue>parse(stringWriter.toString()).value(), "a\"b\\c\nd\u0001");
+    }
+
+    @Test
+    public void testWriteTreeToStream() throws Exception {
+        String document = "{\"data\":{\"student\":[[1,\"John\",4.1],[2,\"Mike\",null]]},\"seq\":{\"student\":2}}";
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (JsonWriter writer = new JsonWriter(outputStream)) {
+            writer.value(new JsonParser().parse(new StringReader(document)));
+        }
+
+        assertEquals(new String(outputStream.toByteArray(), StandardCharsets.UTF_8), document);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testValueWithoutName() throws Exception {
+        new JsonWriter(new StringWriter()).beginObject().value(1);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testIncompleteDocument() throws Exception {
+        JsonWriter writer = new JsonWriter(new StringWriter());
+        writer.beginArray().value(1);
+        writer.close();
+    }
+}
@@ -61,6 +61,27 @@ public class PrimitiveTest {
         assertEquals(((StringValue) value).value(), "Hello");
     }
 
+    @Test
+    public void testParseEscapedString() throws Exception {
+        JsonValue value = jsonParser.parse("\"say \\\"hi\\\"\\n\\u0041\"");
+
+        assertTrue(value instanceof StringValue);
+        assertEquals(((StringValue) value).value(), "say \"hi\"\nA");
+    }
+
+    @Test
+    public void testParseExponentDouble() throws Exception {
+        JsonValue value = jsonParser.parse("1.5E3");
+
+        assertTrue(value instanceof DoubleValue);
+        assertEquals(((DoubleValue) value).value(), 1500, 0.01);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testTrailingContent() throws Exception {
+        jsonParser.parse("[1, 2] 3");
+    }
+
     @Test
     public void testParseEmptyArray() throws Exception {
         JsonValue value = jsonParser.parse("[]");
@@ -202,6 +223,14 @@ public class PrimitiveTest {
         assertEquals(new StringValue("abc").toString(), "\"abc\"");
     }
 
+    @Test
+    public void testEscapedStringValueToString() throws Exception {
+        String stringValue = new StringValue("a\"b\\c").toString();
+
+        assertEquals(stringValue, "\"a\\\"b\\\\c\"");
+        assertEquals(((StringValue) jsonParser.parse(stringValue)).value(), "a\"b\\c");
+    }
+
     @Test
     public void testNullValueToString() throws Exception {
         assertEquals(new NullValue().toString(), "null");
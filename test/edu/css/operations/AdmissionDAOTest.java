@@ -0,0 +1,85 @@
+package edu.css.operations;
+
+import edu.css.db.JsonDB;
+import edu.css.db.Operator;
+import edu.css.db.Page;
+import edu.css.db.Pair;
+import edu.css.db.Query;
+import edu.css.model.Exam;
+import edu.css.model.Student;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public class AdmissionDAOTest {
+
+    @Test
+    public void getResultsTest() {
+        JsonDB jsonDBMock = mock(JsonDB.class);
+        Query<Student> studentQuery = mockQuery();
+        Query<Exam> examQuery = mockQuery();
+
+        List<Pair<Student, Exam>> results = new LinkedList<>();
+        results.add(new Pair<>(new Student("Dinu", 7.5), new Exam(6.5, 1)));
+
+        when(jsonDBMock.query(Student.class)).thenReturn(studentQuery);
+        when(jsonDBMock.query(Exam.class)).thenReturn(examQuery);
+        when(studentQuery.orderByDescending("id")).thenReturn(studentQuery);
+        when(studentQuery.join(examQuery, "id", "studentId")).thenReturn(results);
+
+        AdmissionDAO admissionDAO = new AdmissionDAO(jsonDBMock);
+
+        assertEquals("Different results", results, admissionDAO.getResults());
+        verify(jsonDBMock).begin();
+        verify(jsonDBMock).end(false);
+    }
+
+    @Test
+    public void getResultPageTest() {
+        JsonDB jsonDBMock = mock(JsonDB.class);
+        Query<Student> studentQuery = mockQuery();
+        Query<Exam> examQuery = mockQuery();
+
+        Student withExam = mock(Student.class);
+        when(withExam.getId()).thenReturn(3);
+        Student withoutExam = mock(Student.class);
+        when(withoutExam.getId()).thenReturn(2);
+        Exam exam = new Exam(6.5, 3);
+
+        when(jsonDBMock.query(Student.class)).thenReturn(studentQuery);
+        when(jsonDBMock.query(Exam.class)).thenReturn(examQuery);
+        when(studentQuery.orderByDescending("id")).thenReturn(studentQuery);
+        when(studentQuery.page(2, 4)).thenReturn(new Page<>(Arrays.asList(withExam, withoutExam), 2));
+        when(examQuery.where("studentId", Operator.IN, Arrays.asList(3, 2))).thenReturn(examQuery);
+        when(examQuery.list()).thenReturn(Arrays.asList(exam));
+
+        AdmissionDAO admissionDAO = new AdmissionDAO(jsonDBMock);
+        Page<Pair<Student, Exam>> page = admissionDAO.getResultPage(2, 4);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(withExam, page.getItems().get(0).getLeft());
+        assertEquals(exam, page.getItems().get(0).getRight());
+        assertEquals(withoutExam, page.getItems().get(1).getLeft());
+        assertNull(page.getItems().get(1).getRight());
+        assertEquals((Integer) 2, page.getNextKey());
+        verify(jsonDBMock).end(false);
+    }
+
+    //the student and exam queries are both mocks of the raw Query class
+    @SuppressWarnings("unchecked")
+    private static <T> Query<T> mockQuery() {
+        return mock(Query.class);
+    }
+}
@@ -0,0 +1,81 @@
+package edu.css.operations;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertNotSame;
+
+/**
+ * Catalin Dumitru
+ * Universitatea Alexandru Ioan Cuza
+ */
+public class EntityCacheTest {
+
+    @Test
+    public void evictLeastRecentlyUsedTest() {
+        EntityCache<String> cache = new EntityCache<>(2, Functions.<String>identity());
+
+        cache.put(1, "first", cache.getGeneration());
+        cache.put(2, "second", cache.getGeneration());
+        cache.get(1);
+        cache.put(3, "third", cache.getGeneration());
+
+        assertEquals("first", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("third", cache.get(3));
+    }
+
+    @Test
+    public void ignoreStaleReadTest() {
+        EntityCache<String> cache = new EntityCache<>(10, Functions.<String>identity());
+
+        long generation = cache.getGeneration();
+        cache.removed(1);
+        cache.put(1, "first", generation);
+        cache.putOrdered(Arrays.asList("first"), generation);
+
+        assertNull(cache.get(1));
+        assertNull(cache.getOrdered());
+    }
+
+    @Test
+    public void writeDropsOrderedViewTest() {
+        EntityCache<String> cache = new EntityCache<>(10, Functions.<String>identity());
+
+        cache.putOrdered(Arrays.asList("first", "second"), cache.getGeneration());
+        List<String> ordered = cache.getOrdered();
+        assertEquals(2, ordered.size());
+
+        cache.written(3, "third");
+        assertNull(cache.getOrdered());
+        assertEquals("third", cache.get(3));
+    }
+
+    @Test
+    public void keepCopiesTest() {
+        EntityCache<StringBuilder> cache = new EntityCache<>(10, new Function<StringBuilder, StringBuilder>() {
+            @Override
+            public StringBuilder apply(StringBuilder entity) {
+                return new StringBuilder(entity);
+            }
+        });
+
+        StringBuilder written = new StringBuilder("first");
+        cache.written(1, written);
+        written.append(" unsaved");
+        StringBuilder read = cache.get(1);
+        read.append(" unsaved");
+        assertEquals("first", cache.get(1).toString());
+        assertNotSame(read, cache.get(1));
+
+        cache.putOrdered(Arrays.asList(new StringBuilder("second")), cache.getGeneration());
+        cache.getOrdered().get(0).append(" unsaved");
+        assertEquals("second", cache.getOrdered().get(0).toString());
+    }
+}
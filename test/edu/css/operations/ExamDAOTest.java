@@ -1,16 +1,22 @@
 package edu.css.operations;
 
 import edu.css.db.JsonDB;
+import edu.css.db.Operator;
+import edu.css.db.Query;
 import edu.css.model.Exam;
 import edu.css.model.Student;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -51,6 +57,7 @@ public class ExamDAOTest {
 
         when(jsonDBMock.getAll(Student.class)).thenReturn(studentList);
         when(jsonDBMock.getAll(Exam.class)).thenReturn(examList);
+        when(jsonDBMock.findBy("studentId", student.getId(), Exam.class)).thenReturn(examList);
     }
 
     @Test
@@ -73,10 +80,52 @@ public class ExamDAOTest {
 
         assertEquals("Different exam", exam, foundExam);
         verify(jsonDBMock).begin();
-        verify(jsonDBMock).getAll(Exam.class);
+        verify(jsonDBMock).findBy("studentId", student.getId(), Exam.class);
         verify(jsonDBMock).end(false); // no changes should be
     }
 
+    @Test
+    public void moveCachedExamTest() {
+        Exam stored = mock(Exam.class);
+        when(stored.getId()).thenReturn(5);
+        when(stored.getMark()).thenReturn(7.3);
+        when(stored.getStudentId()).thenReturn(1);
+        when(jsonDBMock.findBy("studentId", 1, Exam.class)).thenReturn(Collections.singletonList(stored));
+        Student otherStudent = mock(Student.class);
+        when(otherStudent.getId()).thenReturn(2);
+        ExamDAO examDAO = new ExamDAO(jsonDBMock);
+
+        examDAO.getExamForStudent(student);
+        Exam movedExam = examDAO.getExamForStudent(student);
+        assertEquals((Integer) 5, movedExam.getId());
+        verify(jsonDBMock, times(1)).findBy("studentId", 1, Exam.class);
+
+        movedExam.setStudentId(2);
+        examDAO.updateExam(movedExam);
+        when(jsonDBMock.findBy("studentId", 1, Exam.class)).thenReturn(Collections.<Exam>emptyList());
+        when(jsonDBMock.findBy("studentId", 2, Exam.class)).thenReturn(Collections.singletonList(movedExam));
+
+        //the exam no longer belongs to the student it was first found for
+        assertNull(examDAO.getExamForStudent(student));
+        assertEquals((Integer) 2, examDAO.getExamForStudent(otherStudent).getStudentId());
+    }
+
+    @Test
+    public void getExamsForStudentsTest() {
+        Query<Exam> query = mockQuery();
+        when(jsonDBMock.query(Exam.class)).thenReturn(query);
+        when(query.where("studentId", Operator.IN, Collections.singleton(1))).thenReturn(query);
+        when(query.list()).thenReturn(examList);
+        ExamDAO examDAO = new ExamDAO(jsonDBMock);
+
+        Map<Integer, Exam> foundExams = examDAO.getExamsForStudents(studentList);
+
+        assertEquals(1, foundExams.size());
+        assertEquals("Different exam", exam, foundExams.get(1));
+        verify(jsonDBMock).begin();
+        verify(jsonDBMock).end(false);
+    }
+
     @Test
     public void newExamTest() {
         ExamDAO examDAO = new ExamDAO(jsonDBMock);
@@ -119,4 +168,34 @@ public class ExamDAOTest {
         verify(jsonDBMock).end(true);
     }
 
+    @Test
+    public void deleteExamsTest() {
+        ExamDAO examDAO = new ExamDAO(jsonDBMock);
+
+        examDAO.deleteExams(examList);
+
+        verify(jsonDBMock).begin();
+        verify(jsonDBMock).deleteAll(examList);
+        verify(jsonDBMock).end(true);
+    }
+
+    @Test
+    public void addExamsTest() {
+        ExamDAO examDAO = new ExamDAO(jsonDBMock);
+
+        List<Exam> newExams = new LinkedList<>();
+        newExams.add(new Exam());
+        newExams.add(new Exam());
+        examDAO.addExams(newExams);
+
+        verify(jsonDBMock).begin();
+        verify(jsonDBMock).saveAll(newExams);
+        verify(jsonDBMock).end(true);
+    }
+
+    //mock() only knows the raw Query class
+    @SuppressWarnings("unchecked")
+    private static <T> Query<T> mockQuery() {
+        return mock(Query.class);
+    }
 }
@@ -1,9 +1,15 @@
 package edu.css.operations;
 
+import edu.css.db.ChangeListener;
 import edu.css.db.JsonDB;
+import edu.css.db.Page;
+import edu.css.db.Query;
 import edu.css.model.Student;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -22,6 +28,7 @@ public class StudentDAOTest {
 
     private JsonDB jsonDBMock;
     private List<Student> studentList;
+    private Query<Student> studentQuery;
 
     @Before
     public void setUp()
@@ -36,6 +43,13 @@ public class StudentDAOTest {
         studentList.add(student);
 
         when(jsonDBMock.getAll(Student.class)).thenReturn(studentList);
+
+        studentQuery = mockQuery();
+        when(jsonDBMock.query(Student.class)).thenReturn(studentQuery);
+        when(studentQuery.orderByDescending("id")).thenReturn(studentQuery);
+        when(studentQuery.offset(anyInt())).thenReturn(studentQuery);
+        when(studentQuery.limit(anyInt())).thenReturn(studentQuery);
+        when(studentQuery.list()).thenReturn(studentList);
     }
 
     @Test
@@ -65,10 +79,133 @@ public class StudentDAOTest {
         List<Student> foundStudents = studentDAO.getStudents();
 
         assertEquals("Different student lists", studentList, foundStudents);
+        verify(studentQuery).orderByDescending("id");
         verify(jsonDBMock).begin();
         verify(jsonDBMock).end(false); // no changes should be
     }
 
+    @Test
+    public void getStudentsPageTest() {
+        StudentDAO studentDAO = new StudentDAO(jsonDBMock);
+
+        assertEquals("Different student lists", studentList, studentDAO.getStudents(20, 10));
+        verify(studentQuery).orderByDescending("id");
+        verify(studentQuery).offset(20);
+        verify(studentQuery).limit(10);
+        verify(jsonDBMock).end(false);
+    }
+
+    @Test
+    public void getStudentPageTest() {
+        Page<Student> page = new Page<>(studentList, 7);
+        when(studentQuery.page(10, 12)).thenReturn(page);
+        StudentDAO studentDAO = new StudentDAO(jsonDBMock);
+
+        assertEquals(page, studentDAO.getStudentPage(10, 12));
+        verify(studentQuery).orderByDescending("id");
+        verify(jsonDBMock).begin();
+        verify(jsonDBMock).end(false);
+    }
+
+    @Test
+    public void getStudentsCachedTest() {
+        StudentDAO studentDAO = new StudentDAO(jsonDBMock);
+        ArgumentCaptor<ChangeListener> listener = ArgumentCaptor.forClass(ChangeListener.class);
+        verify(jsonDBMock).addChangeListener(listener.capture());
+
+        studentDAO.getStudents();
+        List<Student> cachedStudents = studentDAO.getStudents();
+        assertEquals("Different student lists", studentList.size(), cachedStudents.size());
+        assertEquals(studentList.get(0).getName(), cachedStudents.get(0).getName());
+        verify(studentQuery, times(1)).list();
+
+        listener.getValue().changed(Student.class);
+        studentDAO.getStudents();
+        verify(studentQuery, times(2)).list();
+    }
+
+    @Test
+    public void getStudentCachedCopyTest() {
+        when(jsonDBMock.find(1, Student.class)).thenReturn(new Student("Dinu", 7.5));
+        StudentDAO studentDAO = new StudentDAO(jsonDBMock);
+
+        //edits that were never saved must not leak into the cache
+        studentDAO.getStudent(1).setName("Unsaved");
+        studentDAO.getStudent(1).setAverage(1.0);
+        assertEquals("Dinu", studentDAO.getStudent(1).getName());
+        assertEquals(7.5, studentDAO.getStudent(1).getAverage());
+        verify(jsonDBMock, times(1)).find(1, Student.class);
+    }
+
+    @Test
+    public void otherWriterClearsCacheTest() {
+        when(jsonDBMock.find(1, Student.class)).thenReturn(new Student("Dinu", 7.5));
+        final List<ChangeListener> listeners = new LinkedList<>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                listeners.add((ChangeListener) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(jsonDBMock).addChangeListener(any(ChangeListener.class));
+        //like JsonDBImpl, every commit is announced to every listener of the database
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                for (ChangeListener listener : listeners)
+                    listener.changed(Student.class);
+                return null;
+            }
+        }).when(jsonDBMock).end(true);
+        StudentDAO studentDAO = new StudentDAO(jsonDBMock);
+        StudentDAO otherDAO = new StudentDAO(jsonDBMock);
+
+        studentDAO.getStudent(1);
+        studentDAO.updateStudent(new Student("Andrew", 7.9));
+        studentDAO.getStudent(1);
+        verify(jsonDBMock, times(1)).find(1, Student.class);
+
+        otherDAO.updateStudent(new Student("Maria", 9.1));
+        studentDAO.getStudent(1);
+        verify(jsonDBMock, times(2)).find(1, Student.class);
+    }
+
+    @Test
+    public void getStudentNamePageTest() {
+        Page<Student> page = new Page<>(studentList, null);
+        Query<Student> query = mockQuery();
+        when(jsonDBMock.query(Student.class)).thenReturn(query);
+        when(query.select("name")).thenReturn(query);
+        when(query.orderByDescending("id")).thenReturn(query);
+        when(query.page(10, null)).thenReturn(page);
+        StudentDAO studentDAO = new StudentDAO(jsonDBMock);
+
+        assertEquals(page, studentDAO.getStudentNamePage(10, null));
+        verify(query).select("name");
+        verify(jsonDBMock).begin();
+        verify(jsonDBMock).end(false);
+    }
+
+    @Test
+    public void countStudentsTest() {
+        when(jsonDBMock.count(Student.class)).thenReturn(1);
+        StudentDAO studentDAO = new StudentDAO(jsonDBMock);
+
+        assertEquals(1, studentDAO.countStudents());
+        verify(jsonDBMock).begin();
+        verify(jsonDBMock).end(false);
+    }
+
+    @Test
+    public void hasStudentsTest() {
+        when(jsonDBMock.iterate(Student.class)).thenReturn(studentList.iterator());
+        StudentDAO studentDAO = new StudentDAO(jsonDBMock);
+
+        assertEquals(true, studentDAO.hasStudents());
+        verify(jsonDBMock).begin();
+        verify(jsonDBMock).end(false);
+    }
+
     @Test
     public void newStudentTest() {
         StudentDAO studentDAO = new StudentDAO(jsonDBMock);
@@ -106,4 +243,34 @@ public class StudentDAOTest {
         verify(jsonDBMock).end(true);
     }
 
+    @Test
+    public void addStudentsTest() {
+        StudentDAO studentDAO = new StudentDAO(jsonDBMock);
+
+        List<Student> newStudents = new LinkedList<>();
+        newStudents.add(new Student("Andrew", 7.9));
+        newStudents.add(new Student("Maria", 9.1));
+        studentDAO.addStudents(newStudents);
+
+        verify(jsonDBMock).begin();
+        verify(jsonDBMock).saveAll(newStudents);
+        verify(jsonDBMock).end(true);
+    }
+
+    @Test
+    public void deleteStudentsTest() {
+        StudentDAO studentDAO = new StudentDAO(jsonDBMock);
+
+        studentDAO.deleteStudents(studentList);
+
+        verify(jsonDBMock).begin();
+        verify(jsonDBMock).deleteAll(studentList);
+        verify(jsonDBMock).end(true);
+    }
+
+    //Mockito can only mock the raw Query class, every test names the entity type it queries
+    @SuppressWarnings("unchecked")
+    private static <T> Query<T> mockQuery() {
+        return mock(Query.class);
+    }
 }
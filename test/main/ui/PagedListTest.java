@@ -0,0 +1,53 @@
+package main.ui;
+
+import edu.css.db.Page;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PagedListTest {
+
+    private static class CountingList extends PagedList<Integer> {
+        private final List<Integer> afterKeys = new ArrayList<>();
+
+        CountingList(int size) {
+            super(size, 2);
+        }
+
+        @Override
+        protected Page<Integer> loadPage(int pageSize, Integer afterKey) {
+            afterKeys.add(afterKey);
+            int first = afterKey == null ? 0 : afterKey + 1;
+            List<Integer> items = new ArrayList<>();
+            for (int i = first; i < first + pageSize && i < 5; i++) {
+                items.add(i);
+            }
+            return new Page<>(items, first + pageSize < 5 ? first + pageSize - 1 : null);
+        }
+    }
+
+    @Test
+    public void testPagesLoadedOnDemand() throws Exception {
+        CountingList list = new CountingList(5);
+
+        assertEquals((Integer) 1, list.get(1));
+        assertEquals(Arrays.<Integer>asList((Integer) null), list.afterKeys);
+
+        assertEquals((Integer) 4, list.get(4));
+        assertEquals((Integer) 0, list.get(0));
+        assertEquals(Arrays.asList(null, 1, 3), list.afterKeys);
+    }
+
+    @Test
+    public void testRowsRemovedSinceCreated() throws Exception {
+        CountingList list = new CountingList(8);
+
+        assertNull(list.get(5));
+        assertNull(list.get(7));
+        assertEquals(3, list.afterKeys.size());
+    }
+}